@@ -0,0 +1,81 @@
+package main;
+
+import main.ast.types.SubtypeCache;
+import main.ast.types.TypeFactory;
+import main.compileErrorException.DiagnosticSink;
+import main.symbolTable.MemberLookupCache;
+import main.symbolTable.SymbolDependencies;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.utils.graph.Graph;
+import main.symbolTable.utils.stack.Stack;
+
+//Everything one compilation shares between its passes.
+//Each compilation owns its own context, so several programs can be compiled at the same time.
+public class CompilationContext {
+    private SymbolTable top;
+    private SymbolTable root;
+    private final Stack<SymbolTable> stack = new Stack<>();
+    private Graph<String> classHierarchy;
+    private final TypeFactory typeFactory = new TypeFactory();
+    private final MemberLookupCache memberLookupCache = new MemberLookupCache(typeFactory);
+    private final SubtypeCache subtypeCache = new SubtypeCache();
+    private final DiagnosticSink diagnostics = new DiagnosticSink();
+    //type checking records what it reads only when this is set
+    private SymbolDependencies symbolDependencies;
+
+    public void push(SymbolTable symbolTable) {
+        if (top != null)
+            stack.push(top);
+        top = symbolTable;
+    }
+
+    public void pop() {
+        top = stack.pop();
+    }
+
+    public SymbolTable getTop() {
+        return top;
+    }
+
+    public SymbolTable getRoot() {
+        return root;
+    }
+
+    public void setRoot(SymbolTable root) {
+        this.root = root;
+        memberLookupCache.setRoot(root);
+    }
+
+    public Graph<String> getClassHierarchy() {
+        return classHierarchy;
+    }
+
+    public void setClassHierarchy(Graph<String> classHierarchy) {
+        this.classHierarchy = classHierarchy;
+        subtypeCache.clear();
+    }
+
+    public TypeFactory getTypeFactory() {
+        return typeFactory;
+    }
+
+    public MemberLookupCache getMemberLookupCache() {
+        return memberLookupCache;
+    }
+
+    public SubtypeCache getSubtypeCache() {
+        return subtypeCache;
+    }
+
+    public DiagnosticSink getDiagnostics() {
+        return diagnostics;
+    }
+
+    public SymbolDependencies getSymbolDependencies() {
+        return symbolDependencies;
+    }
+
+    public void setSymbolDependencies(SymbolDependencies symbolDependencies) {
+        this.symbolDependencies = symbolDependencies;
+    }
+}
@@ -1,14 +1,112 @@
 package main;
 
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
+import main.cache.ResultCache;
+import main.lsp.SophiaLanguageServer;
+import main.symbolTable.SymbolDependencies;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Sophia {
+    private static final String USAGE =
+            "usage: Sophia [--cache <directory>] [--cache-size <megabytes>] [--parallel] [--dependencies] <file>\n" +
+            "       Sophia [--cache <directory>] [--cache-size <megabytes>] --batch <file or directory>...\n" +
+            "       Sophia --compact <file>\n" +
+            "       Sophia --lsp\n" +
+            "       Sophia --daemon";
+
     public static void main(String[] args) throws IOException {
-        CharStream reader = CharStreams.fromFileName(args[0]);
+        //"--cache <directory>" and "--cache-size <megabytes>" keep results of files compiled before
+        String cacheDirectory = null;
+        long cacheSize = ResultCache.DEFAULT_MAX_BYTES;
+        while(args.length > 0 && (args[0].equals("--cache") || args[0].equals("--cache-size"))) {
+            if(args.length < 2)
+                exitWithUsage();
+            if(args[0].equals("--cache"))
+                cacheDirectory = args[1];
+            else
+                cacheSize = parseMegabytes(args[1]) * 1024 * 1024;
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if(args.length == 0)
+            exitWithUsage();
+        ResultCache resultCache = null;
+        if(cacheDirectory != null) {
+            //without a version of the build the results of another build could be read, so there is no cache then
+            String cacheVersion = ResultCache.buildVersion(SophiaCompiler.VERSION, SophiaCompiler.class);
+            if(cacheVersion != null)
+                resultCache = new ResultCache(Paths.get(cacheDirectory), cacheSize, cacheVersion);
+        }
+
+        if(args[0].equals("--lsp")) {
+            //the protocol owns the standard output, anything else printed goes to the standard error
+            PrintStream protocolOut = System.out;
+            System.setOut(System.err);
+            SophiaLanguageServer languageServer = new SophiaLanguageServer(System.in, protocolOut);
+            System.exit(languageServer.serve());
+        }
+        if(args[0].equals("--daemon")) {
+            SophiaDaemon sophiaDaemon = new SophiaDaemon(System.in, System.out);
+            sophiaDaemon.serve();
+            return;
+        }
+        if(args[0].equals("--batch")) {
+            List<String> files = SophiaBatchCompiler.collectSourceFiles(Arrays.asList(args).subList(1, args.length));
+            SophiaBatchCompiler batchCompiler = new SophiaBatchCompiler();
+            batchCompiler.setResultCache(resultCache);
+            int numberOfFailures = batchCompiler.compileAll(files, System.out);
+            batchCompiler.shutdown();
+            if(numberOfFailures > 0)
+                System.exit(1);
+            return;
+        }
+        if(args[0].equals("--compact")) {
+            //for programs too large to keep as nodes, see SophiaCompactCompiler
+            if(args.length < 2)
+                exitWithUsage();
+            SophiaCompactCompiler compactCompiler = new SophiaCompactCompiler();
+            compactCompiler.compileFile(args[1]);
+            return;
+        }
         SophiaCompiler sophiaCompiler = new SophiaCompiler();
-        sophiaCompiler.compile(reader);
+        sophiaCompiler.setResultCache(resultCache);
+        if(args[0].equals("--parallel")) {
+            sophiaCompiler.setTypeCheckingPool(ForkJoinPool.commonPool());
+            args = Arrays.copyOfRange(args, 1, args.length);
+            if(args.length == 0)
+                exitWithUsage();
+        }
+        if(args[0].equals("--dependencies")) {
+            //prints what type checking read for every method after the result, see SymbolDependencies
+            if(args.length < 2)
+                exitWithUsage();
+            sophiaCompiler.setRecordingDependencies(true);
+            int numberOfErrors = sophiaCompiler.compileFile(args[1], System.out);
+            SymbolDependencies symbolDependencies = sophiaCompiler.getLastSymbolDependencies();
+            if(symbolDependencies != null)
+                symbolDependencies.print(System.out);
+            if(numberOfErrors > 0)
+                System.exit(1);
+            return;
+        }
+        sophiaCompiler.compileFile(args[0]);
+    }
+
+    private static long parseMegabytes(String megabytes) {
+        try {
+            return Long.parseLong(megabytes);
+        } catch(NumberFormatException e) {
+            exitWithUsage();
+            return 0;
+        }
+    }
+
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(2);
     }
 }
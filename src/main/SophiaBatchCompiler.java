@@ -0,0 +1,139 @@
+package main;
+
+import main.cache.ResultCache;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Compiles many .sop files in one JVM on a work stealing pool.
+//Results are printed in the order of the given file list (directories are expanded in name order),
+//each one preceded by a "== <file>" header line.
+public class SophiaBatchCompiler {
+    public static final String FILE_HEADER = "== ";
+    private static final String SOURCE_SUFFIX = ".sop";
+    //files are split in halves until a task has at most this many of them
+    private static final int FILES_PER_TASK = 4;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<SophiaCompiler> compilers = ThreadLocal.withInitial(this::newCompiler);
+    //shared by the compilers of all threads when set, set it before the first compileAll
+    private volatile ResultCache resultCache;
+
+    public SophiaBatchCompiler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SophiaBatchCompiler(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    private SophiaCompiler newCompiler() {
+        SophiaCompiler compiler = new SophiaCompiler();
+        compiler.setResultCache(resultCache);
+        return compiler;
+    }
+
+    public static List<String> collectSourceFiles(List<String> paths) {
+        List<String> files = new ArrayList<>();
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                File[] children = file.listFiles();
+                if (children == null)
+                    continue;
+                Arrays.sort(children);
+                List<String> childPaths = new ArrayList<>();
+                for (File child : children) {
+                    if (child.isDirectory() || child.getName().endsWith(SOURCE_SUFFIX))
+                        childPaths.add(child.getPath());
+                }
+                files.addAll(collectSourceFiles(childPaths));
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    //returns the number of files that did not compile successfully
+    public int compileAll(List<String> files, PrintStream out) {
+        BatchResult[] results = new BatchResult[files.size()];
+        pool.invoke(new CompileTask(files, results, 0, files.size()));
+        int numberOfFailures = 0;
+        for (int i = 0; i < files.size(); i++) {
+            out.println(FILE_HEADER + files.get(i));
+            out.print(results[i].output);
+            if (!results[i].successful)
+                numberOfFailures++;
+        }
+        out.flush();
+        return numberOfFailures;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private BatchResult compile(String fileName) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream compilerOut = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+        boolean successful;
+        try {
+            successful = compilers.get().compileFile(fileName, compilerOut) == 0;
+        } catch (IOException e) {
+            compilerOut.println("Can not read " + fileName + ": " + e.getMessage());
+            successful = false;
+        } catch (RuntimeException e) {
+            //a broken input must not take the other files of the batch down
+            compilerOut.println("Compiler failed on " + fileName + ": " + e);
+            compilers.remove();
+            successful = false;
+        }
+        compilerOut.flush();
+        return new BatchResult(buffer.toString(StandardCharsets.UTF_8), successful);
+    }
+
+    private static class BatchResult {
+        private final String output;
+        private final boolean successful;
+
+        private BatchResult(String output, boolean successful) {
+            this.output = output;
+            this.successful = successful;
+        }
+    }
+
+    private class CompileTask extends RecursiveAction {
+        private final List<String> files;
+        private final BatchResult[] results;
+        private final int from;
+        private final int to;
+
+        private CompileTask(List<String> files, BatchResult[] results, int from, int to) {
+            this.files = files;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILES_PER_TASK) {
+                for (int i = from; i < to; i++)
+                    results[i] = compile(files.get(i));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CompileTask(files, results, from, middle), new CompileTask(files, results, middle, to));
+        }
+    }
+}
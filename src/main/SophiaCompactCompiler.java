@@ -0,0 +1,157 @@
+package main;
+
+import main.ast.compact.CompactAst;
+import main.ast.compact.CompactAstEncoder;
+import main.ast.compact.CompactAstMaterializer;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.compileErrorException.DiagnosticSink;
+import main.visitor.nameAnalyzer.IdentifierResolver;
+import main.visitor.nameAnalyzer.NameAnalyzer;
+import main.visitor.typeChecker.TypeChecker;
+import main.visitor.utils.ErrorReporter;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import parsers.SophiaLexer;
+import parsers.SophiaParser;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//Compiles programs too large to keep as nodes, with the output of SophiaCompiler.compile.
+//The source is read through an unbuffered stream and parsed a class at a time; every class is encoded into a
+//CompactAst and its nodes are dropped. Name analysis runs over the declarations only, every error it reports
+//is on one of them. Then every class is turned into nodes again, type checked and its errors printed before the
+//next one, after the error of a missing Main class which the ErrorReporter always prints first. So besides the
+//arrays of the CompactAst only the declarations the symbol tables refer to and a single class exist as nodes.
+//Sources the lexer or the parser reject are handed to a SophiaCompiler as a whole so they are reported exactly
+//like before.
+//Not thread safe: give every thread its own SophiaCompactCompiler.
+public class SophiaCompactCompiler {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SophiaCompiler fullCompiler = new SophiaCompiler();
+    private final SophiaLexer lexer = new SophiaLexer(null) {
+        //the text around an error may be gone from the unbuffered stream, only whether there was one matters
+        @Override
+        public void notifyListeners(LexerNoViableAltException e) {
+            rejected = true;
+        }
+    };
+    private final SophiaParser parser = new SophiaParser(null);
+    private boolean rejected;
+    private int lastNumberOfNodes;
+
+    public SophiaCompactCompiler() {
+        //the unbuffered stream drops the text of a token once the lexer is past it
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+    }
+
+    public void compileFile(String fileName) throws IOException {
+        int numberOfErrors = compileFile(fileName, System.out);
+        if(numberOfErrors > 0)
+            System.exit(1);
+    }
+
+    //returns the number of reported errors, 0 means the compilation was successful
+    public int compileFile(String fileName, PrintStream out) throws IOException {
+        CompactAst ast;
+        try(InputStream input = new FileInputStream(fileName)) {
+            ast = encode(new UnbufferedCharStream(input, BUFFER_SIZE, StandardCharsets.UTF_8));
+        }
+        if(ast == null)
+            return fullCompiler.compileFile(fileName, out);
+        return compile(ast, out);
+    }
+
+    //the number of nodes of the last program compiled a class at a time
+    public int getLastNumberOfNodes() {
+        return lastNumberOfNodes;
+    }
+
+    //returns the number of reported errors, 0 means the compilation was successful
+    public int compile(CompactAst ast, PrintStream out) {
+        lastNumberOfNodes = ast.size();
+        CompilationContext context = new CompilationContext();
+        ErrorReporter errorReporter = new ErrorReporter(context.getDiagnostics(), out);
+        CompactAstMaterializer materializer = new CompactAstMaterializer(ast, context.getTypeFactory());
+
+        Program declarations = materializer.materializeDeclarations();
+        new NameAnalyzer(declarations, context).analyze();
+        int numberOfErrors = report(declarations, context, errorReporter);
+        if(numberOfErrors > 0)
+            return numberOfErrors;
+
+        context.getDiagnostics().setPhase(DiagnosticSink.Phase.TYPE_CHECKING);
+        TypeChecker typeChecker = new TypeChecker(context);
+        IdentifierResolver identifierResolver = new IdentifierResolver(context);
+        typeChecker.checkMainExists(declarations);
+        numberOfErrors += report(declarations, context, errorReporter);
+        for(int node = ast.getFirstChild(0); node != -1; node = ast.getNextSibling(node)) {
+            ClassDeclaration classDeclaration = materializer.materializeClass(node);
+            classDeclaration.accept(identifierResolver);
+            typeChecker.checkClass(classDeclaration);
+            Program classProgram = new Program();
+            classProgram.addClass(classDeclaration);
+            numberOfErrors += report(classProgram, context, errorReporter);
+        }
+        if(numberOfErrors > 0)
+            return numberOfErrors;
+
+        out.println(SophiaCompiler.SUCCESS_MESSAGE);
+        return 0;
+    }
+
+    //the program is only walked when there is something to report
+    private int report(Program program, CompilationContext context, ErrorReporter errorReporter) {
+        if(context.getDiagnostics().isEmpty())
+            return 0;
+        return program.accept(errorReporter);
+    }
+
+    //null when the source has to be compiled as a whole
+    private CompactAst encode(CharStream textStream) {
+        rejected = false;
+        lexer.setInputStream(textStream);
+        CompactAstEncoder encoder = new CompactAstEncoder();
+        encoder.startProgram(1);
+        List<Token> classTokens = new ArrayList<>();
+        for(Token token = lexer.nextToken(); ; token = lexer.nextToken()) {
+            if(rejected)
+                return null;
+            boolean atEnd = token.getType() == Token.EOF;
+            if((atEnd || token.getType() == SophiaLexer.CLASS) && !classTokens.isEmpty()) {
+                ClassDeclaration classDeclaration = parseClass(classTokens);
+                if(classDeclaration == null)
+                    return null;
+                encoder.addClass(classDeclaration);
+                classTokens.clear();
+            }
+            if(atEnd)
+                break;
+            classTokens.add(token);
+        }
+        return encoder.finishProgram();
+    }
+
+    private ClassDeclaration parseClass(List<Token> classTokens) {
+        if(classTokens.get(0).getType() != SophiaLexer.CLASS)
+            return null;
+        parser.setTokenStream(new CommonTokenStream(new ListTokenSource(new ArrayList<>(classTokens))));
+        try {
+            ClassDeclaration classDeclaration = parser.sophiaClass().sophiaClassRet;
+            if(parser.getCurrentToken().getType() != Token.EOF)
+                return null;
+            return classDeclaration;
+        } catch(ParseCancellationException e) {
+            return null;
+        }
+    }
+}
@@ -1,36 +1,153 @@
 package main;
 
 import main.ast.nodes.Program;
+import main.cache.ResultCache;
+import main.symbolTable.SymbolDependencies;
 import main.visitor.nameAnalyzer.NameAnalyzer;
+import main.visitor.typeChecker.ParallelTypeChecker;
 import main.visitor.typeChecker.TypeChecker;
 import main.visitor.utils.ErrorReporter;
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.*;
 import parsers.SophiaLexer;
 import parsers.SophiaParser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
 
+
+//Not thread safe: give every thread its own SophiaCompiler to compile programs in parallel.
 public class SophiaCompiler {
-    public void compile(CharStream textStream) {
-        SophiaLexer sophiaLexer = new SophiaLexer(textStream);
-        CommonTokenStream tokenStream = new CommonTokenStream(sophiaLexer);
-        SophiaParser sophiaParser = new SophiaParser(tokenStream);
-        Program program = sophiaParser.sophia().sophiaProgram;
-        ErrorReporter errorReporter = new ErrorReporter();
+    //the result cache keys also hold a digest of the compiled classes, see ResultCache.buildVersion
+    public static final String VERSION = "3.1";
+    public static final String SUCCESS_MESSAGE = "Compilation successful";
 
-        NameAnalyzer nameAnalyzer = new NameAnalyzer(program);
-        nameAnalyzer.analyze();
-        int numberOfErrors = program.accept(errorReporter);
+    //kept between compilations so a long running compiler reuses them
+    private SophiaLexer sophiaLexer;
+    private SophiaParser sophiaParser;
+    //classes are type checked on this pool when it is set
+    private ForkJoinPool typeCheckingPool;
+    //when set, type checking records what every method reads, see SymbolDependencies
+    private boolean recordingDependencies;
+    private SymbolDependencies lastSymbolDependencies;
+    //files are looked up in this cache before they are parsed when it is set
+    private ResultCache resultCache;
+    //what the lexer and the parser of the last compilation printed on the standard error, which a cached result
+    //does not hold
+    private int numberOfSyntaxErrors;
+    private final BaseErrorListener syntaxErrorCounter = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            numberOfSyntaxErrors++;
+        }
+    };
+
+    public void setTypeCheckingPool(ForkJoinPool typeCheckingPool) {
+        this.typeCheckingPool = typeCheckingPool;
+    }
+
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public void setRecordingDependencies(boolean recordingDependencies) {
+        this.recordingDependencies = recordingDependencies;
+    }
+
+    //what the type checking of the last compilation read, null when it did not record or did not type check
+    public SymbolDependencies getLastSymbolDependencies() {
+        return lastSymbolDependencies;
+    }
+
+    public void compile(CharStream textStream) {
+        int numberOfErrors = compile(textStream, System.out);
         if(numberOfErrors > 0)
             System.exit(1);
+    }
 
-        TypeChecker typeChecker = new TypeChecker(nameAnalyzer.getClassHierarchy());
-        program.accept(typeChecker);
-        numberOfErrors = program.accept(errorReporter);
+    public void compileFile(String fileName) throws IOException {
+        int numberOfErrors = compileFile(fileName, System.out);
         if(numberOfErrors > 0)
             System.exit(1);
+    }
+
+    //returns the number of reported errors, 0 means the compilation was successful
+    public int compileFile(String fileName, PrintStream out) throws IOException {
+        //a cached result has no dependencies to record
+        if(resultCache == null || recordingDependencies)
+            return compile(CharStreams.fromFileName(fileName), out);
+        byte[] source = Files.readAllBytes(Paths.get(fileName));
+        String key = resultCache.keyOf(source);
+        ResultCache.Result result = resultCache.find(key, SUCCESS_MESSAGE + System.lineSeparator());
+        if(result == null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            PrintStream bufferOut = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+            int numberOfErrors = compile(CharStreams.fromStream(new ByteArrayInputStream(source), StandardCharsets.UTF_8), bufferOut);
+            bufferOut.flush();
+            result = new ResultCache.Result(numberOfErrors, buffer.toString(StandardCharsets.UTF_8));
+            //a hit would not print the syntax errors again
+            if(numberOfSyntaxErrors == 0)
+                resultCache.store(key, result);
+        }
+        out.print(result.getOutput());
+        return result.getNumberOfErrors();
+    }
 
-        System.out.println("Compilation successful");
+    //returns the number of reported errors, 0 means the compilation was successful
+    public int compile(CharStream textStream, PrintStream out) {
+        Program program = parse(textStream);
+        CompilationContext context = new CompilationContext();
+        ErrorReporter errorReporter = new ErrorReporter(context.getDiagnostics(), out);
+        lastSymbolDependencies = null;
+
+        NameAnalyzer nameAnalyzer = new NameAnalyzer(program, context);
+        nameAnalyzer.analyze();
+        int numberOfErrors = report(program, context, errorReporter);
+        if(numberOfErrors > 0)
+            return numberOfErrors;
+
+        if(recordingDependencies) {
+            lastSymbolDependencies = new SymbolDependencies();
+            context.setSymbolDependencies(lastSymbolDependencies);
+        }
+        if(typeCheckingPool != null) {
+            new ParallelTypeChecker(context, typeCheckingPool).check(program);
+        } else {
+            TypeChecker typeChecker = new TypeChecker(context);
+            program.accept(typeChecker);
+        }
+        numberOfErrors = report(program, context, errorReporter);
+        if(numberOfErrors > 0)
+            return numberOfErrors;
+
+        out.println(SUCCESS_MESSAGE);
+        return 0;
+    }
+
+    //the program is only walked when there is something to report
+    private int report(Program program, CompilationContext context, ErrorReporter errorReporter) {
+        if(context.getDiagnostics().isEmpty())
+            return 0;
+        return program.accept(errorReporter);
+    }
 
+    private Program parse(CharStream textStream) {
+        numberOfSyntaxErrors = 0;
+        if(sophiaLexer == null) {
+            sophiaLexer = new SophiaLexer(textStream);
+            sophiaParser = new SophiaParser(new CommonTokenStream(sophiaLexer));
+            sophiaLexer.addErrorListener(syntaxErrorCounter);
+            sophiaParser.addErrorListener(syntaxErrorCounter);
+        } else {
+            sophiaLexer.setInputStream(textStream);
+            sophiaParser.setTokenStream(new CommonTokenStream(sophiaLexer));
+        }
+        return sophiaParser.sophia().sophiaProgram;
     }
 }
@@ -0,0 +1,72 @@
+package main;
+
+import main.incremental.IncrementalCompiler;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Long running compiler: every line read from the input is the path of a .sop file to compile.
+//The answer is the usual compiler output followed by a line "#done <exitCode>",
+//where exitCode is 0 on success, 1 on compile errors, 2 when the file can not be read and 3 when the compiler
+//failed on it.
+//A line "#quit" (or the end of the input) stops the daemon.
+//Files are compiled incrementally: compiling a file again only redoes the work its changes require.
+public class SophiaDaemon {
+    public static final String DONE_MARKER = "#done ";
+    public static final String QUIT_COMMAND = "#quit";
+    //the files whose previous compilation is kept, the least recently compiled one is dropped first
+    private static final int MAX_KEPT_FILES = 16;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final Map<String, IncrementalCompiler> compilers = new LinkedHashMap<>(MAX_KEPT_FILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IncrementalCompiler> eldest) {
+            return size() > MAX_KEPT_FILES;
+        }
+    };
+
+    public SophiaDaemon(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+    }
+
+    public void serve() throws IOException {
+        String request;
+        while((request = in.readLine()) != null) {
+            request = request.trim();
+            if(request.isEmpty())
+                continue;
+            if(request.equals(QUIT_COMMAND))
+                break;
+            int exitCode = compile(request);
+            out.println(DONE_MARKER + exitCode);
+            out.flush();
+        }
+    }
+
+    private int compile(String fileName) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream compilerOut = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+        int exitCode;
+        try {
+            IncrementalCompiler compiler = compilers.computeIfAbsent(fileName, key -> new IncrementalCompiler());
+            int numberOfErrors = compiler.compile(CharStreams.fromFileName(fileName), compilerOut);
+            exitCode = numberOfErrors > 0 ? 1 : 0;
+        } catch (IOException e) {
+            compilerOut.println("Can not read " + fileName + ": " + e.getMessage());
+            exitCode = 2;
+        } catch (RuntimeException e) {
+            //a broken input must not take the daemon down; the next request for the file compiles it from scratch
+            compilerOut.println("Compiler failed on " + fileName + ": " + e);
+            compilers.remove(fileName);
+            exitCode = 3;
+        }
+        compilerOut.flush();
+        out.print(buffer.toString(StandardCharsets.UTF_8));
+        return exitCode;
+    }
+}
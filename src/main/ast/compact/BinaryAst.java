@@ -0,0 +1,314 @@
+package main.ast.compact;
+
+import main.ast.nodes.expression.Identifier;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.types.NoType;
+import main.ast.types.NullType;
+import main.ast.types.Type;
+import main.ast.types.TypeFactory;
+import main.ast.types.TypeKind;
+import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListType;
+import main.ast.types.single.BoolType;
+import main.ast.types.single.IntType;
+import main.ast.types.single.StringType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+//A CompactAst stored in bytes, read where it lies: mapping a file written by the BinaryAstWriter decodes its
+//string and type pools, nodes are decoded only when a Cursor reaches them.
+//The format, numbers are unsigned variable length numbers of seven bits per byte unless said otherwise:
+//  header       the int MAGIC and the int FORMAT_VERSION
+//  size         the number of nodes
+//  strings      their number, then the UTF-8 bytes of each one after their length
+//  types        their number, then each type as a TypeKind ordinal byte, or NULL_TYPE, followed by
+//                 CLASS: the string of its name
+//                 LIST:  the number of segments, then the count, the string of the name and the type of each
+//                 FPTR:  the number of arguments, the type of each, the return type
+//  nodes        in pre-order, each one as its NodeKind ordinal byte, then
+//                 its line minus the line of its parent, zigzag encoded; the program counts from line 0
+//                 the number of nodes in its subtree without itself
+//                 the number of bytes of that subtree without itself, when it is not 0
+//                 what the CompactAst holds for its kind, when it holds something; a zigzag encoded int
+//                 for INT_VALUE
+//Strings and types are referred to by their position in their pool. Types only refer to the types before
+//them. Reading never changes the buffer or the pools, one BinaryAst can be read by several threads at once.
+public class BinaryAst {
+    static final int MAGIC = 0x534F5041;
+    static final int FORMAT_VERSION = 1;
+    static final int NULL_TYPE = 0xFF;
+
+    private static final NodeKind[] KINDS = NodeKind.values();
+    private static final TypeKind[] TYPE_KINDS = TypeKind.values();
+    private static final BinaryOperator[] BINARY_OPERATORS = BinaryOperator.values();
+    private static final UnaryOperator[] UNARY_OPERATORS = UnaryOperator.values();
+    private static final boolean[] HAS_DATA = new boolean[KINDS.length];
+
+    static {
+        for (NodeKind kind : new NodeKind[] {
+                NodeKind.CONSTRUCTOR_DECLARATION, NodeKind.METHOD_DECLARATION, NodeKind.ARGUMENT,
+                NodeKind.LOCAL_VARIABLE, NodeKind.VAR_DECLARATION, NodeKind.BINARY_EXPRESSION,
+                NodeKind.UNARY_EXPRESSION, NodeKind.IDENTIFIER, NodeKind.NEW_CLASS_INSTANCE,
+                NodeKind.INT_VALUE, NodeKind.BOOL_VALUE, NodeKind.STRING_VALUE}) {
+            HAS_DATA[kind.ordinal()] = true;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final String[] strings;
+    private final Type[] types;
+    private final int nodesOffset;
+
+    public BinaryAst(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 8 || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a binary Sophia AST");
+        if (buffer.getInt(4) != FORMAT_VERSION)
+            throw new IOException("Unsupported binary AST version " + buffer.getInt(4));
+        try {
+            Decoder decoder = new Decoder(8);
+            size = decoder.readNumber();
+            strings = new String[decoder.readNumber()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[decoder.readNumber()];
+                buffer.get(decoder.position, bytes);
+                decoder.position += bytes.length;
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            //a type is decoded after the types it refers to
+            TypeFactory typeFactory = new TypeFactory();
+            types = new Type[decoder.readNumber()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = decodeType(decoder, typeFactory);
+            }
+            nodesOffset = decoder.position;
+            if (nodesOffset > buffer.limit())
+                throw new IOException("Truncated binary AST");
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Truncated binary AST");
+        }
+    }
+
+    //the file stays mapped until the BinaryAst is garbage collected
+    public static BinaryAst map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryAst(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    //Reads forward from a position with absolute gets, so decoders of several threads do not disturb each other.
+    private class Decoder {
+        private int position;
+
+        private Decoder(int position) {
+            this.position = position;
+        }
+
+        private int readByte() {
+            return buffer.get(position++) & 0xFF;
+        }
+
+        private int readNumber() {
+            int number = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = buffer.get(position++);
+                number |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return number;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Cursor getRoot() {
+        return new Cursor(null, nodesOffset, 0, 0);
+    }
+
+    public String getString(int id) {
+        return strings[id];
+    }
+
+    //types are interned, the same type is the same instance
+    public Type getType(int id) {
+        return types[id];
+    }
+
+    private Type decodeType(Decoder decoder, TypeFactory typeFactory) {
+        int kind = decoder.readByte();
+        if (kind == NULL_TYPE)
+            return null;
+        switch (TYPE_KINDS[kind]) {
+            case INT:
+                return IntType.INSTANCE;
+            case BOOL:
+                return BoolType.INSTANCE;
+            case STRING:
+                return StringType.INSTANCE;
+            case NULL:
+                return NullType.INSTANCE;
+            case CLASS:
+                return typeFactory.classType(getString(decoder.readNumber()));
+            case LIST:
+                ListType listType = new ListType();
+                for (int segments = decoder.readNumber(); segments > 0; segments--) {
+                    int count = decoder.readNumber();
+                    Identifier name = new Identifier(getString(decoder.readNumber()));
+                    listType.addElementTypes(new ListNameType(name, getType(decoder.readNumber())), count);
+                }
+                return typeFactory.listType(listType);
+            case FPTR:
+                ArrayList<Type> argumentsTypes = new ArrayList<>();
+                for (int arguments = decoder.readNumber(); arguments > 0; arguments--) {
+                    argumentsTypes.add(getType(decoder.readNumber()));
+                }
+                return typeFactory.fptrType(argumentsTypes, getType(decoder.readNumber()));
+            default:
+                return NoType.INSTANCE;
+        }
+    }
+
+    //decodes every node, for the tools that need the whole program
+    public CompactAst toCompactAst() {
+        byte[] kinds = new byte[size];
+        int[] lines = new int[size];
+        int[] parents = new int[size];
+        int[] ends = new int[size];
+        int[] data = new int[size];
+        Decoder decoder = new Decoder(nodesOffset);
+        for (int node = 0; node < size; node++) {
+            kinds[node] = (byte) decoder.readByte();
+            int parent = node - 1;
+            while (parent != -1 && ends[parent] <= node)
+                parent = parents[parent];
+            parents[node] = parent;
+            lines[node] = (parent == -1 ? 0 : lines[parent]) + decodeZigzag(decoder.readNumber());
+            int descendants = decoder.readNumber();
+            if (descendants > 0)
+                decoder.readNumber();
+            ends[node] = node + descendants + 1;
+            data[node] = readData(decoder, KINDS[kinds[node]]);
+        }
+        return new CompactAst(size, kinds, lines, parents, ends, data, strings.clone(), types.clone());
+    }
+
+    private static int readData(Decoder decoder, NodeKind kind) {
+        if (!HAS_DATA[kind.ordinal()])
+            return 0;
+        if (kind == NodeKind.INT_VALUE)
+            return decodeZigzag(decoder.readNumber());
+        return decoder.readNumber();
+    }
+
+    static int encodeZigzag(int number) {
+        return (number << 1) ^ (number >> 31);
+    }
+
+    static int decodeZigzag(int number) {
+        return (number >>> 1) ^ -(number & 1);
+    }
+
+    static boolean hasData(NodeKind kind) {
+        return HAS_DATA[kind.ordinal()];
+    }
+
+    //One node of the program; its header is decoded when the cursor is made. Cursors do not change, moving
+    //to another node makes a new one.
+    public class Cursor {
+        private final Cursor parent;
+        private final int node;
+        private final NodeKind kind;
+        private final int line;
+        private final int descendants;
+        private final int descendantBytes;
+        private final int data;
+        private final int childrenOffset;
+
+        private Cursor(Cursor parent, int recordOffset, int node, int parentLine) {
+            this.parent = parent;
+            this.node = node;
+            Decoder decoder = new Decoder(recordOffset);
+            kind = KINDS[decoder.readByte()];
+            line = parentLine + decodeZigzag(decoder.readNumber());
+            descendants = decoder.readNumber();
+            descendantBytes = descendants > 0 ? decoder.readNumber() : 0;
+            data = readData(decoder, kind);
+            childrenOffset = decoder.position;
+        }
+
+        //the number of the node in pre-order, the one it has in the CompactAst
+        public int getNode() {
+            return node;
+        }
+
+        public NodeKind getKind() {
+            return kind;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getEnd() {
+            return node + descendants + 1;
+        }
+
+        //null for the program
+        public Cursor getParent() {
+            return parent;
+        }
+
+        //null when the node has no children
+        public Cursor getFirstChild() {
+            if (descendants == 0)
+                return null;
+            return new Cursor(this, childrenOffset, node + 1, line);
+        }
+
+        //null when the node is the last child of its parent
+        public Cursor getNextSibling() {
+            if (parent == null || getEnd() >= parent.getEnd())
+                return null;
+            return new Cursor(parent, childrenOffset + descendantBytes, getEnd(), parent.line);
+        }
+
+        //null when the node has no child at that position
+        public Cursor getChild(int index) {
+            Cursor child = getFirstChild();
+            for (int i = 0; i < index && child != null; i++) {
+                child = child.getNextSibling();
+            }
+            return child;
+        }
+
+        public String getString() {
+            return BinaryAst.this.getString(data);
+        }
+
+        public int getInt() {
+            return data;
+        }
+
+        public Type getType() {
+            return BinaryAst.this.getType(data);
+        }
+
+        public BinaryOperator getBinaryOperator() {
+            return BINARY_OPERATORS[data];
+        }
+
+        public UnaryOperator getUnaryOperator() {
+            return UNARY_OPERATORS[data];
+        }
+    }
+}
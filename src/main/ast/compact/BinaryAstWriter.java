@@ -0,0 +1,183 @@
+package main.ast.compact;
+
+import main.ast.types.Type;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListSegment;
+import main.ast.types.list.ListType;
+import main.ast.types.single.ClassType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+//Writes a CompactAst in the format a BinaryAst reads, see BinaryAst.
+//The strings of the CompactAst keep their positions; the class and element names in types are added after them.
+//Types are renumbered so that every type comes after the types it is made of.
+public class BinaryAstWriter {
+    private ByteArrayOutputStream out;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final Map<Type, Integer> typeIds = new IdentityHashMap<>();
+    private final ByteArrayOutputStream typePool = new ByteArrayOutputStream();
+
+    public byte[] write(CompactAst ast) {
+        out = new ByteArrayOutputStream();
+        stringIds.clear();
+        strings.clear();
+        typeIds.clear();
+        typePool.reset();
+        for (String string : ast.getStringPool())
+            stringId(string);
+        Type[] compactTypes = ast.getTypePool();
+        int[] newTypeIds = new int[compactTypes.length];
+        for (int i = 0; i < compactTypes.length; i++)
+            newTypeIds[i] = typeId(compactTypes[i]);
+
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(BinaryAst.MAGIC).putInt(BinaryAst.FORMAT_VERSION);
+        out.writeBytes(header.array());
+        writeNumber(out, ast.size());
+        writeNumber(out, strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeNumber(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+        writeNumber(out, typeIds.size());
+        out.writeBytes(typePool.toByteArray());
+        writeNodes(ast, newTypeIds);
+        return out.toByteArray();
+    }
+
+    //written next to the file and moved in place, a reader never maps a file that is being written
+    public void write(CompactAst ast, Path file) throws IOException {
+        Path temporaryFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryFile, write(ast));
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    //the size of every subtree is known before its root is written, so the nodes are measured from the last one
+    private void writeNodes(CompactAst ast, int[] newTypeIds) {
+        int size = ast.size();
+        int[] data = new int[size];
+        int[] descendantBytes = new int[size];
+        int[] subtreeBytes = new int[size];
+        for (int node = size - 1; node >= 0; node--) {
+            data[node] = encodeData(ast, node, newTypeIds);
+            int headerBytes = 1 + numberLength(BinaryAst.encodeZigzag(lineDelta(ast, node)))
+                    + numberLength(ast.getEnd(node) - node - 1);
+            if (ast.getEnd(node) - node > 1)
+                headerBytes += numberLength(descendantBytes[node]);
+            if (BinaryAst.hasData(ast.getKind(node)))
+                headerBytes += numberLength(data[node]);
+            subtreeBytes[node] = headerBytes + descendantBytes[node];
+            if (ast.getParent(node) != -1)
+                descendantBytes[ast.getParent(node)] += subtreeBytes[node];
+        }
+        for (int node = 0; node < size; node++) {
+            out.write(ast.getKind(node).ordinal());
+            writeNumber(out, BinaryAst.encodeZigzag(lineDelta(ast, node)));
+            writeNumber(out, ast.getEnd(node) - node - 1);
+            if (ast.getEnd(node) - node > 1)
+                writeNumber(out, descendantBytes[node]);
+            if (BinaryAst.hasData(ast.getKind(node)))
+                writeNumber(out, data[node]);
+        }
+    }
+
+    private static int lineDelta(CompactAst ast, int node) {
+        int parent = ast.getParent(node);
+        return ast.getLine(node) - (parent == -1 ? 0 : ast.getLine(parent));
+    }
+
+    private static int encodeData(CompactAst ast, int node, int[] newTypeIds) {
+        switch (ast.getKind(node)) {
+            case CONSTRUCTOR_DECLARATION:
+            case METHOD_DECLARATION:
+            case ARGUMENT:
+            case LOCAL_VARIABLE:
+            case VAR_DECLARATION:
+            case NEW_CLASS_INSTANCE:
+                return newTypeIds[ast.getData(node)];
+            case INT_VALUE:
+                return BinaryAst.encodeZigzag(ast.getData(node));
+            default:
+                return ast.getData(node);
+        }
+    }
+
+    private int stringId(String string) {
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = strings.size();
+            strings.add(string);
+            stringIds.put(string, id);
+        }
+        return id;
+    }
+
+    //the types a type is made of get their ids first
+    private int typeId(Type type) {
+        Integer id = typeIds.get(type);
+        if (id != null)
+            return id;
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        if (type == null) {
+            record.write(BinaryAst.NULL_TYPE);
+        } else {
+            record.write(type.getKind().ordinal());
+            switch (type.getKind()) {
+                case CLASS:
+                    writeNumber(record, stringId(((ClassType) type).getClassName().getName()));
+                    break;
+                case LIST:
+                    List<ListSegment> segments = ((ListType) type).getSegments();
+                    writeNumber(record, segments.size());
+                    for (ListSegment segment : segments) {
+                        writeNumber(record, segment.getCount());
+                        writeNumber(record, stringId(segment.getElementType().getName().getName()));
+                        writeNumber(record, typeId(segment.getElementType().getType()));
+                    }
+                    break;
+                case FPTR:
+                    ArrayList<Type> argumentsTypes = ((FptrType) type).getArgumentsTypes();
+                    writeNumber(record, argumentsTypes.size());
+                    for (Type argumentType : argumentsTypes)
+                        writeNumber(record, typeId(argumentType));
+                    writeNumber(record, typeId(((FptrType) type).getReturnType()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        id = typeIds.size();
+        typeIds.put(type, id);
+        typePool.writeBytes(record.toByteArray());
+        return id;
+    }
+
+    private static int numberLength(int number) {
+        int length = 1;
+        while ((number & ~0x7F) != 0) {
+            number >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static void writeNumber(ByteArrayOutputStream out, int number) {
+        while ((number & ~0x7F) != 0) {
+            out.write((number & 0x7F) | 0x80);
+            number >>>= 7;
+        }
+        out.write(number);
+    }
+}
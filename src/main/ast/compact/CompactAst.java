@@ -0,0 +1,132 @@
+package main.ast.compact;
+
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.types.Type;
+import main.visitor.IVisitor;
+
+//A whole program in a few primitive arrays instead of one object per node, arrays that may be longer than the
+//number of nodes.
+//Nodes are numbered in pre-order, the order the ErrorReporter and the ASTTreePrinter visit them in, and the
+//subtree of node i is the range [i, getEnd(i)). Children are in the order their getters are visited; a null
+//child is kept as an ABSENT node so every child keeps its position.
+//What a node holds besides its children depends on its kind:
+//  IDENTIFIER, STRING_VALUE: a string, see getString
+//  INT_VALUE, BOOL_VALUE: the constant, see getInt
+//  BINARY_EXPRESSION, UNARY_EXPRESSION: the operator
+//  ARGUMENT, LOCAL_VARIABLE, VAR_DECLARATION, METHOD_DECLARATION, NEW_CLASS_INSTANCE: a type, see getType
+//Made by the CompactAstEncoder, turned back into nodes a class at a time by the CompactAstMaterializer; the
+//SophiaCompactCompiler compiles programs this way. The BinaryAstWriter stores it in a file that a BinaryAst
+//reads without loading it.
+public class CompactAst {
+    private static final NodeKind[] KINDS = NodeKind.values();
+    private static final BinaryOperator[] BINARY_OPERATORS = BinaryOperator.values();
+    private static final UnaryOperator[] UNARY_OPERATORS = UnaryOperator.values();
+
+    private final int size;
+    private final byte[] kinds;
+    private final int[] lines;
+    private final int[] parents;
+    private final int[] ends;
+    private final int[] data;
+    private final String[] strings;
+    private final Type[] types;
+
+    CompactAst(int size, byte[] kinds, int[] lines, int[] parents, int[] ends, int[] data, String[] strings, Type[] types) {
+        this.size = size;
+        this.kinds = kinds;
+        this.lines = lines;
+        this.parents = parents;
+        this.ends = ends;
+        this.data = data;
+        this.strings = strings;
+        this.types = types;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public NodeKind getKind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    public int getLine(int node) {
+        return lines[node];
+    }
+
+    //-1 for the program
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getEnd(int node) {
+        return ends[node];
+    }
+
+    //-1 when the node has no children
+    public int getFirstChild(int node) {
+        return ends[node] > node + 1 ? node + 1 : -1;
+    }
+
+    //-1 when the node is the last child of its parent
+    public int getNextSibling(int node) {
+        int parent = parents[node];
+        if(parent == -1 || ends[node] >= ends[parent])
+            return -1;
+        return ends[node];
+    }
+
+    //-1 when the node has no child at that position
+    public int getChild(int node, int index) {
+        int child = getFirstChild(node);
+        for(int i = 0; i < index && child != -1; i++) {
+            child = getNextSibling(child);
+        }
+        return child;
+    }
+
+    public String getString(int node) {
+        return strings[data[node]];
+    }
+
+    public int getInt(int node) {
+        return data[node];
+    }
+
+    public Type getType(int node) {
+        return types[data[node]];
+    }
+
+    //what the node holds besides its children, undecoded
+    int getData(int node) {
+        return data[node];
+    }
+
+    String[] getStringPool() {
+        return strings;
+    }
+
+    Type[] getTypePool() {
+        return types;
+    }
+
+    public BinaryOperator getBinaryOperator(int node) {
+        return BINARY_OPERATORS[data[node]];
+    }
+
+    public UnaryOperator getUnaryOperator(int node) {
+        return UNARY_OPERATORS[data[node]];
+    }
+
+    //runs the visitor over every class on its own, only one class is turned into nodes at a time;
+    //enough for visitors that do not need to see the other classes
+    public <T> void acceptEachClass(IVisitor<T> visitor) {
+        CompactAstMaterializer materializer = new CompactAstMaterializer(this);
+        for(int node = getFirstChild(0); node != -1; node = getNextSibling(node)) {
+            ClassDeclaration classDeclaration = materializer.materializeClass(node);
+            classDeclaration.accept(visitor);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package main.ast.compact;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.Type;
+import main.ast.types.TypeFactory;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+//Writes a program into a CompactAst. Strings are stored once, and types once per structurally equal type.
+//An encoder encodes one program.
+public class CompactAstEncoder extends Visitor<Void> {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size = 0;
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] data = new int[INITIAL_CAPACITY];
+    //the node the next node is added to
+    private int currentParent = -1;
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final TypeFactory typeFactory = new TypeFactory();
+    private final Map<Type, Integer> typeIds = new IdentityHashMap<>();
+    private final ArrayList<Type> types = new ArrayList<>();
+
+    public CompactAst encode(Program program) {
+        program.accept(this);
+        return build();
+    }
+
+    //a program can also be encoded a class at a time, so that its nodes never all exist at once: startProgram,
+    //addClass for every class in order, then finishProgram
+    public void startProgram(int line) {
+        open(NodeKind.PROGRAM, line, 0);
+    }
+
+    public void addClass(ClassDeclaration classDeclaration) {
+        addChild(classDeclaration);
+    }
+
+    public CompactAst finishProgram() {
+        close(0);
+        return build();
+    }
+
+    //the arrays are handed over as they are, trimming them would need room for a second copy of the program
+    private CompactAst build() {
+        return new CompactAst(size, kinds, lines, parents, ends, data,
+                strings.toArray(new String[0]), types.toArray(new Type[0]));
+    }
+
+    private void ensureCapacity() {
+        if(size < kinds.length)
+            return;
+        int capacity = kinds.length + (kinds.length >> 1);
+        kinds = Arrays.copyOf(kinds, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    //adds a node, the nodes added until it is closed become its subtree
+    private int open(NodeKind kind, int line, int value) {
+        ensureCapacity();
+        int node = size++;
+        kinds[node] = (byte) kind.ordinal();
+        lines[node] = line;
+        parents[node] = currentParent;
+        data[node] = value;
+        currentParent = node;
+        return node;
+    }
+
+    private int open(NodeKind kind, Node node) {
+        return open(kind, node.getLine(), 0);
+    }
+
+    private void close(int node) {
+        ends[node] = size;
+        currentParent = parents[node];
+    }
+
+    private void addLeaf(NodeKind kind, Node node, int value) {
+        close(open(kind, node.getLine(), value));
+    }
+
+    private void addChild(Node node) {
+        if(node == null)
+            close(open(NodeKind.ABSENT, 0, 0));
+        else
+            node.accept(this);
+    }
+
+    private int stringId(String string) {
+        Integer id = stringIds.get(string);
+        if(id == null) {
+            id = strings.size();
+            strings.add(string);
+            stringIds.put(string, id);
+        }
+        return id;
+    }
+
+    private int typeId(Type type) {
+        Type internedType = typeFactory.intern(type);
+        Integer id = typeIds.get(internedType);
+        if(id == null) {
+            id = types.size();
+            types.add(internedType);
+            typeIds.put(internedType, id);
+        }
+        return id;
+    }
+
+    private void addVarDeclaration(NodeKind kind, VarDeclaration varDeclaration) {
+        int node = open(kind, varDeclaration.getLine(), typeId(varDeclaration.getType()));
+        addChild(varDeclaration.getVarName());
+        close(node);
+    }
+
+    private void addMethod(NodeKind kind, MethodDeclaration methodDeclaration) {
+        int node = open(kind, methodDeclaration.getLine(), typeId(methodDeclaration.getReturnType()));
+        addChild(methodDeclaration.getMethodName());
+        for(VarDeclaration varDeclaration : methodDeclaration.getArgs()) {
+            addVarDeclaration(NodeKind.ARGUMENT, varDeclaration);
+        }
+        for(VarDeclaration varDeclaration : methodDeclaration.getLocalVars()) {
+            addVarDeclaration(NodeKind.LOCAL_VARIABLE, varDeclaration);
+        }
+        for(Statement statement : methodDeclaration.getBody()) {
+            addChild(statement);
+        }
+        close(node);
+    }
+
+    @Override
+    public Void visit(Program program) {
+        int node = open(NodeKind.PROGRAM, program);
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            addChild(classDeclaration);
+        }
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ClassDeclaration classDeclaration) {
+        int node = open(NodeKind.CLASS_DECLARATION, classDeclaration);
+        addChild(classDeclaration.getClassName());
+        addChild(classDeclaration.getParentClassName());
+        for(FieldDeclaration fieldDeclaration : classDeclaration.getFields()) {
+            addChild(fieldDeclaration);
+        }
+        if(classDeclaration.getConstructor() != null) {
+            addChild(classDeclaration.getConstructor());
+        }
+        for(MethodDeclaration methodDeclaration : classDeclaration.getMethods()) {
+            addChild(methodDeclaration);
+        }
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConstructorDeclaration constructorDeclaration) {
+        addMethod(NodeKind.CONSTRUCTOR_DECLARATION, constructorDeclaration);
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodDeclaration methodDeclaration) {
+        addMethod(NodeKind.METHOD_DECLARATION, methodDeclaration);
+        return null;
+    }
+
+    @Override
+    public Void visit(FieldDeclaration fieldDeclaration) {
+        int node = open(NodeKind.FIELD_DECLARATION, fieldDeclaration);
+        addChild(fieldDeclaration.getVarDeclaration());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDeclaration varDeclaration) {
+        addVarDeclaration(NodeKind.VAR_DECLARATION, varDeclaration);
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        int node = open(NodeKind.ASSIGNMENT_STMT, assignmentStmt);
+        addChild(assignmentStmt.getlValue());
+        addChild(assignmentStmt.getrValue());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        int node = open(NodeKind.BLOCK_STMT, blockStmt);
+        for(Statement statement : blockStmt.getStatements()) {
+            addChild(statement);
+        }
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        int node = open(NodeKind.CONDITIONAL_STMT, conditionalStmt);
+        addChild(conditionalStmt.getCondition());
+        addChild(conditionalStmt.getThenBody());
+        addChild(conditionalStmt.getElseBody());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCallStmt methodCallStmt) {
+        int node = open(NodeKind.METHOD_CALL_STMT, methodCallStmt);
+        addChild(methodCallStmt.getMethodCall());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(PrintStmt print) {
+        int node = open(NodeKind.PRINT_STMT, print);
+        addChild(print.getArg());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        int node = open(NodeKind.RETURN_STMT, returnStmt);
+        addChild(returnStmt.getReturnedExpr());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(BreakStmt breakStmt) {
+        addLeaf(NodeKind.BREAK_STMT, breakStmt, 0);
+        return null;
+    }
+
+    @Override
+    public Void visit(ContinueStmt continueStmt) {
+        addLeaf(NodeKind.CONTINUE_STMT, continueStmt, 0);
+        return null;
+    }
+
+    @Override
+    public Void visit(ForeachStmt foreachStmt) {
+        int node = open(NodeKind.FOREACH_STMT, foreachStmt);
+        addChild(foreachStmt.getVariable());
+        addChild(foreachStmt.getList());
+        addChild(foreachStmt.getBody());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ForStmt forStmt) {
+        int node = open(NodeKind.FOR_STMT, forStmt);
+        addChild(forStmt.getInitialize());
+        addChild(forStmt.getCondition());
+        addChild(forStmt.getUpdate());
+        addChild(forStmt.getBody());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        int node = open(NodeKind.BINARY_EXPRESSION, binaryExpression.getLine(),
+                binaryExpression.getBinaryOperator().ordinal());
+        addChild(binaryExpression.getFirstOperand());
+        addChild(binaryExpression.getSecondOperand());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        int node = open(NodeKind.UNARY_EXPRESSION, unaryExpression.getLine(),
+                unaryExpression.getOperator().ordinal());
+        addChild(unaryExpression.getOperand());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        int node = open(NodeKind.OBJECT_OR_LIST_MEMBER_ACCESS, objectOrListMemberAccess);
+        addChild(objectOrListMemberAccess.getInstance());
+        addChild(objectOrListMemberAccess.getMemberName());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        addLeaf(NodeKind.IDENTIFIER, identifier, stringId(identifier.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        int node = open(NodeKind.LIST_ACCESS_BY_INDEX, listAccessByIndex);
+        addChild(listAccessByIndex.getInstance());
+        addChild(listAccessByIndex.getIndex());
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCall methodCall) {
+        int node = open(NodeKind.METHOD_CALL, methodCall);
+        addChild(methodCall.getInstance());
+        for(Expression expression : methodCall.getArgs()) {
+            addChild(expression);
+        }
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(NewClassInstance newClassInstance) {
+        int node = open(NodeKind.NEW_CLASS_INSTANCE, newClassInstance.getLine(),
+                typeId(newClassInstance.getClassType()));
+        for(Expression expression : newClassInstance.getArgs()) {
+            addChild(expression);
+        }
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ThisClass thisClass) {
+        addLeaf(NodeKind.THIS_CLASS, thisClass, 0);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListValue listValue) {
+        int node = open(NodeKind.LIST_VALUE, listValue);
+        for(Expression expression : listValue.getElements()) {
+            addChild(expression);
+        }
+        close(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(NullValue nullValue) {
+        addLeaf(NodeKind.NULL_VALUE, nullValue, 0);
+        return null;
+    }
+
+    @Override
+    public Void visit(IntValue intValue) {
+        addLeaf(NodeKind.INT_VALUE, intValue, intValue.getConstant());
+        return null;
+    }
+
+    @Override
+    public Void visit(BoolValue boolValue) {
+        addLeaf(NodeKind.BOOL_VALUE, boolValue, boolValue.getConstant() ? 1 : 0);
+        return null;
+    }
+
+    @Override
+    public Void visit(StringValue stringValue) {
+        addLeaf(NodeKind.STRING_VALUE, stringValue, stringId(stringValue.getConstant()));
+        return null;
+    }
+}
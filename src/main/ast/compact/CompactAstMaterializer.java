@@ -0,0 +1,241 @@
+package main.ast.compact;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.Type;
+import main.ast.types.TypeFactory;
+import main.ast.types.single.ClassType;
+
+import java.util.ArrayList;
+
+//Turns the classes of a CompactAst back into nodes that the visitors can run over, one at a time.
+//Every call makes new nodes; nodes with the same type share the Type instance.
+public class CompactAstMaterializer {
+    private final CompactAst ast;
+    //types are interned by this factory when it is set, the types of the CompactAst are used as they are otherwise
+    private final TypeFactory typeFactory;
+    private final Type[] internedTypes;
+    //whether methods get their statements
+    private boolean withBodies = true;
+
+    public CompactAstMaterializer(CompactAst ast) {
+        this(ast, null);
+    }
+
+    //nodes get the types the factory interns, so they can be compared with the ones of a compilation
+    public CompactAstMaterializer(CompactAst ast, TypeFactory typeFactory) {
+        this.ast = ast;
+        this.typeFactory = typeFactory;
+        this.internedTypes = typeFactory == null ? null : new Type[ast.getTypePool().length];
+    }
+
+    //the classes with their fields and the signatures and variables of their methods, without any statement;
+    //all name analysis looks at, a small part of the nodes of a program
+    public Program materializeDeclarations() {
+        withBodies = false;
+        try {
+            Program program = new Program();
+            program.setLine(ast.getLine(0));
+            for(int child = ast.getFirstChild(0); child != -1; child = ast.getNextSibling(child)) {
+                program.addClass(materializeClass(child));
+            }
+            return program;
+        } finally {
+            withBodies = true;
+        }
+    }
+
+    public ClassDeclaration materializeClass(int node) {
+        return (ClassDeclaration) build(node);
+    }
+
+    private Type type(int node) {
+        if(typeFactory == null)
+            return ast.getType(node);
+        int id = ast.getData(node);
+        if(internedTypes[id] == null)
+            internedTypes[id] = typeFactory.intern(ast.getType(node));
+        return internedTypes[id];
+    }
+
+    private Node build(int node) {
+        if(node == -1)
+            return null;
+        Node built = create(node);
+        if(built != null)
+            built.setLine(ast.getLine(node));
+        return built;
+    }
+
+    private Expression expression(int node) {
+        return (Expression) build(node);
+    }
+
+    private Statement statement(int node) {
+        return (Statement) build(node);
+    }
+
+    private Identifier identifier(int node) {
+        return (Identifier) build(node);
+    }
+
+    private ArrayList<Expression> expressionsFrom(int firstNode) {
+        ArrayList<Expression> expressions = new ArrayList<>();
+        for(int child = firstNode; child != -1; child = ast.getNextSibling(child)) {
+            expressions.add(expression(child));
+        }
+        return expressions;
+    }
+
+    private VarDeclaration varDeclaration(int node) {
+        return new VarDeclaration(identifier(ast.getFirstChild(node)), type(node));
+    }
+
+    private MethodDeclaration method(int node, MethodDeclaration methodDeclaration) {
+        for(int child = ast.getNextSibling(ast.getFirstChild(node)); child != -1; child = ast.getNextSibling(child)) {
+            switch(ast.getKind(child)) {
+                case ARGUMENT:
+                    methodDeclaration.addArg((VarDeclaration) build(child));
+                    break;
+                case LOCAL_VARIABLE:
+                    methodDeclaration.addLocalVar((VarDeclaration) build(child));
+                    break;
+                default:
+                    if(withBodies)
+                        methodDeclaration.addBodyStatement(statement(child));
+            }
+        }
+        return methodDeclaration;
+    }
+
+    private ClassDeclaration classDeclaration(int node) {
+        int classNameNode = ast.getFirstChild(node);
+        ClassDeclaration classDeclaration = new ClassDeclaration(identifier(classNameNode));
+        int parentNameNode = ast.getNextSibling(classNameNode);
+        classDeclaration.setParentClassName(identifier(parentNameNode));
+        for(int child = ast.getNextSibling(parentNameNode); child != -1; child = ast.getNextSibling(child)) {
+            switch(ast.getKind(child)) {
+                case FIELD_DECLARATION:
+                    classDeclaration.addField((FieldDeclaration) build(child));
+                    break;
+                case CONSTRUCTOR_DECLARATION:
+                    classDeclaration.setConstructor((ConstructorDeclaration) build(child));
+                    break;
+                default:
+                    classDeclaration.addMethod((MethodDeclaration) build(child));
+            }
+        }
+        return classDeclaration;
+    }
+
+    private ForStmt forStmt(int node) {
+        ForStmt forStmt = new ForStmt();
+        int initialize = ast.getChild(node, 0);
+        int condition = ast.getNextSibling(initialize);
+        int update = ast.getNextSibling(condition);
+        forStmt.setInitialize((AssignmentStmt) build(initialize));
+        forStmt.setCondition(expression(condition));
+        forStmt.setUpdate((AssignmentStmt) build(update));
+        forStmt.setBody(statement(ast.getNextSibling(update)));
+        return forStmt;
+    }
+
+    private Node create(int node) {
+        int first = ast.getFirstChild(node);
+        switch(ast.getKind(node)) {
+            case CLASS_DECLARATION:
+                return classDeclaration(node);
+            case FIELD_DECLARATION:
+                return new FieldDeclaration((VarDeclaration) build(first));
+            case CONSTRUCTOR_DECLARATION:
+                return method(node, new ConstructorDeclaration(identifier(first)));
+            case METHOD_DECLARATION:
+                return method(node, new MethodDeclaration(identifier(first), type(node)));
+            case ARGUMENT:
+            case LOCAL_VARIABLE:
+            case VAR_DECLARATION:
+                return varDeclaration(node);
+            case ASSIGNMENT_STMT:
+                return new AssignmentStmt(expression(first), expression(ast.getNextSibling(first)));
+            case BLOCK_STMT: {
+                BlockStmt blockStmt = new BlockStmt();
+                for(int child = first; child != -1; child = ast.getNextSibling(child)) {
+                    blockStmt.addStatement(statement(child));
+                }
+                return blockStmt;
+            }
+            case CONDITIONAL_STMT: {
+                int thenBody = ast.getNextSibling(first);
+                ConditionalStmt conditionalStmt = new ConditionalStmt(expression(first), statement(thenBody));
+                conditionalStmt.setElseBody(statement(ast.getNextSibling(thenBody)));
+                return conditionalStmt;
+            }
+            case METHOD_CALL_STMT:
+                return new MethodCallStmt((MethodCall) build(first));
+            case PRINT_STMT:
+                return new PrintStmt(expression(first));
+            case RETURN_STMT: {
+                ReturnStmt returnStmt = new ReturnStmt();
+                returnStmt.setReturnedExpr(expression(first));
+                return returnStmt;
+            }
+            case BREAK_STMT:
+                return new BreakStmt();
+            case CONTINUE_STMT:
+                return new ContinueStmt();
+            case FOREACH_STMT: {
+                int list = ast.getNextSibling(first);
+                ForeachStmt foreachStmt = new ForeachStmt(identifier(first), expression(list));
+                foreachStmt.setBody(statement(ast.getNextSibling(list)));
+                return foreachStmt;
+            }
+            case FOR_STMT:
+                return forStmt(node);
+            case BINARY_EXPRESSION:
+                return new BinaryExpression(expression(first), expression(ast.getNextSibling(first)),
+                        ast.getBinaryOperator(node));
+            case UNARY_EXPRESSION:
+                return new UnaryExpression(expression(first), ast.getUnaryOperator(node));
+            case OBJECT_OR_LIST_MEMBER_ACCESS:
+                return new ObjectOrListMemberAccess(expression(first), identifier(ast.getNextSibling(first)));
+            case IDENTIFIER:
+                return new Identifier(ast.getString(node));
+            case LIST_ACCESS_BY_INDEX:
+                return new ListAccessByIndex(expression(first), expression(ast.getNextSibling(first)));
+            case METHOD_CALL:
+                return new MethodCall(expression(first), expressionsFrom(ast.getNextSibling(first)));
+            case NEW_CLASS_INSTANCE:
+                return new NewClassInstance((ClassType) type(node), expressionsFrom(first));
+            case THIS_CLASS:
+                return new ThisClass();
+            case LIST_VALUE:
+                return new ListValue(expressionsFrom(first));
+            case NULL_VALUE:
+                return new NullValue();
+            case INT_VALUE:
+                return new IntValue(ast.getInt(node));
+            case BOOL_VALUE:
+                return new BoolValue(ast.getInt(node) != 0);
+            case STRING_VALUE:
+                return new StringValue(ast.getString(node));
+            default:
+                return null;
+        }
+    }
+}
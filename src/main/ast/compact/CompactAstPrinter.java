@@ -0,0 +1,95 @@
+package main.ast.compact;
+
+import main.ast.types.single.ClassType;
+
+import java.io.PrintStream;
+
+//Prints a CompactAst exactly like the ASTTreePrinter prints the program, in one pass over the arrays:
+//the nodes are already stored in the order the ASTTreePrinter visits them.
+public class CompactAstPrinter {
+    private final PrintStream out;
+
+    public CompactAstPrinter() {
+        this(System.out);
+    }
+
+    public CompactAstPrinter(PrintStream out) {
+        this.out = out;
+    }
+
+    public void print(CompactAst ast) {
+        for(int node = 0; node < ast.size(); node++) {
+            if(ast.getKind(node) == NodeKind.ABSENT)
+                continue;
+            out.println("Line:" + ast.getLine(node) + ":" + label(ast, node));
+        }
+    }
+
+    //what toString of the node returns
+    private String label(CompactAst ast, int node) {
+        switch(ast.getKind(node)) {
+            case PROGRAM:
+                return "Program";
+            case CLASS_DECLARATION:
+                return "ClassDeclaration_" + ast.getString(node + 1);
+            case FIELD_DECLARATION:
+                return "FieldDeclaration_" + ast.getString(node + 2);
+            case CONSTRUCTOR_DECLARATION:
+                return "ConstructorDeclaration_" + ast.getString(node + 1);
+            case METHOD_DECLARATION:
+                return "MethodDeclaration_" + ast.getString(node + 1);
+            case ARGUMENT:
+            case LOCAL_VARIABLE:
+            case VAR_DECLARATION:
+                return "VarDeclaration_" + ast.getString(node + 1);
+            case ASSIGNMENT_STMT:
+                return "AssignmentStmt";
+            case BLOCK_STMT:
+                return "BlockStmt";
+            case CONDITIONAL_STMT:
+                return "ConditionalStmt";
+            case METHOD_CALL_STMT:
+                return "MethodCallStmt";
+            case PRINT_STMT:
+                return "PrintStmt";
+            case RETURN_STMT:
+                return "ReturnStmt";
+            case BREAK_STMT:
+                return "BreakStmt";
+            case CONTINUE_STMT:
+                return "ContinueStmt";
+            case FOREACH_STMT:
+                return "ForeachStmt";
+            case FOR_STMT:
+                return "ForStmt";
+            case BINARY_EXPRESSION:
+                return "BinaryExpression_" + ast.getBinaryOperator(node).name();
+            case UNARY_EXPRESSION:
+                return "UnaryExpression_" + ast.getUnaryOperator(node).name();
+            case OBJECT_OR_LIST_MEMBER_ACCESS:
+                return "ObjectOrListMemberAccess_" + ast.getString(ast.getNextSibling(node + 1));
+            case IDENTIFIER:
+                return "Identifier_" + ast.getString(node);
+            case LIST_ACCESS_BY_INDEX:
+                return "ListAccessByIndex";
+            case METHOD_CALL:
+                return "MethodCall";
+            case NEW_CLASS_INSTANCE:
+                return "NewClassInstance_" + ((ClassType) ast.getType(node)).getClassName().getName();
+            case THIS_CLASS:
+                return "ThisClass";
+            case LIST_VALUE:
+                return "ListValue";
+            case NULL_VALUE:
+                return "NullValue";
+            case INT_VALUE:
+                return "IntValue_" + ast.getInt(node);
+            case BOOL_VALUE:
+                return "BoolValue_" + (ast.getInt(node) != 0);
+            case STRING_VALUE:
+                return "StringValue_" + ast.getString(node);
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package main.ast.compact;
+
+//The kind of every node in a CompactAst. ABSENT stands for a child that is null in the object AST.
+//Method arguments and local variables get kinds of their own, so the two lists can be told apart.
+public enum NodeKind {
+    PROGRAM, CLASS_DECLARATION, FIELD_DECLARATION, CONSTRUCTOR_DECLARATION, METHOD_DECLARATION,
+    ARGUMENT, LOCAL_VARIABLE, VAR_DECLARATION,
+    ASSIGNMENT_STMT, BLOCK_STMT, CONDITIONAL_STMT, METHOD_CALL_STMT, PRINT_STMT, RETURN_STMT,
+    BREAK_STMT, CONTINUE_STMT, FOREACH_STMT, FOR_STMT,
+    BINARY_EXPRESSION, UNARY_EXPRESSION, OBJECT_OR_LIST_MEMBER_ACCESS, IDENTIFIER, LIST_ACCESS_BY_INDEX,
+    METHOD_CALL, NEW_CLASS_INSTANCE, THIS_CLASS, LIST_VALUE, NULL_VALUE, INT_VALUE, BOOL_VALUE, STRING_VALUE,
+    ABSENT
+}
@@ -4,7 +4,11 @@ import main.visitor.IVisitor;
 
 //line -> IDENTIFIER
 public class Identifier extends Expression{
+    public static final int UNRESOLVED = -1;
     private String name;
+    //filled in by the IdentifierResolver: how many scopes up the declaration is and its slot there
+    private int scopeDepth = UNRESOLVED;
+    private int slot = UNRESOLVED;
 
     public Identifier(String name) {
         this.name = name;
@@ -18,6 +22,23 @@ public class Identifier extends Expression{
         this.name = name;
     }
 
+    public boolean isResolved() {
+        return slot != UNRESOLVED;
+    }
+
+    public int getScopeDepth() {
+        return scopeDepth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setResolvedSlot(int scopeDepth, int slot) {
+        this.scopeDepth = scopeDepth;
+        this.slot = slot;
+    }
+
     @Override
     public String toString() {
         return "Identifier_" + this.name;
@@ -1,6 +1,12 @@
 package main.ast.types;
 
 public class NoType extends Type {
+    public static final NoType INSTANCE = new NoType();
+
+    public NoType() {
+        super(TypeKind.NO_TYPE);
+    }
+
     @Override
     public String toString() {
         return "NoType";
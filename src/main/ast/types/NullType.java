@@ -1,6 +1,12 @@
 package main.ast.types;
 
 public class NullType extends Type {
+    public static final NullType INSTANCE = new NullType();
+
+    public NullType() {
+        super(TypeKind.NULL);
+    }
+
     @Override
     public String toString() {
         return "NullType";
@@ -0,0 +1,70 @@
+package main.ast.types;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//Remembers whether one type is a subtype of another, so deep function pointer and list types are compared
+//once per compilation. Pairs are compared by identity, which finds them again because the checkers only see
+//types interned by the TypeFactory of the compilation.
+//Nothing is locked while the checker compares a pair, so the comparison can look up the pairs of its element
+//types; two threads comparing the same pair at the same time get the same answer and it is stored once.
+public class SubtypeCache {
+    private static class TypePair {
+        private final Type subType;
+        private final Type superType;
+
+        private TypePair(Type subType, Type superType) {
+            this.subType = subType;
+            this.superType = superType;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof TypePair))
+                return false;
+            TypePair pair = (TypePair) object;
+            return subType == pair.subType && superType == pair.superType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(subType) + System.identityHashCode(superType);
+        }
+    }
+
+    private final Map<TypePair, Boolean> subtypes = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    //null when the pair has not been compared yet
+    public Boolean get(Type subType, Type superType) {
+        Boolean isSubtype = subtypes.get(new TypePair(subType, superType));
+        if (isSubtype == null)
+            misses.increment();
+        else
+            hits.increment();
+        return isSubtype;
+    }
+
+    public void put(Type subType, Type superType, boolean isSubtype) {
+        subtypes.putIfAbsent(new TypePair(subType, superType), isSubtype);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return subtypes.size();
+    }
+
+    //the answers for class types inside function pointers and lists depend on the class hierarchy
+    public void clear() {
+        subtypes.clear();
+    }
+}
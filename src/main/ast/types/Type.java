@@ -1,5 +1,15 @@
 package main.ast.types;
 
 public abstract class Type {
+    private final TypeKind kind;
+
+    protected Type(TypeKind kind) {
+        this.kind = kind;
+    }
+
+    public final TypeKind getKind() {
+        return kind;
+    }
+
     public abstract String toString();
 }
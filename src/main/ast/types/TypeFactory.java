@@ -0,0 +1,122 @@
+package main.ast.types;
+
+import main.ast.nodes.expression.Identifier;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListSegment;
+import main.ast.types.list.ListType;
+import main.ast.types.single.BoolType;
+import main.ast.types.single.ClassType;
+import main.ast.types.single.IntType;
+import main.ast.types.single.StringType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//Hash-conses types: structurally equal types interned by the same factory are the same instance,
+//so the checkers can compare them by identity. Interned types must not be modified afterwards.
+//Safe to use from several threads at once; racing threads all get the same instance.
+public class TypeFactory {
+    private static final String CLASS_KEY = "Class";
+    private static final String LIST_KEY = "List";
+    private static final String FPTR_KEY = "Fptr";
+
+    //keys hold names and already interned element types, which are compared by identity
+    private final Map<List<Object>, Type> internedTypes = new ConcurrentHashMap<>();
+    //types do not override equals, so this is an identity set
+    private final Set<Type> canonicalTypes = ConcurrentHashMap.newKeySet();
+
+    public Type intern(Type type) {
+        if (type == null)
+            return null;
+        if (canonicalTypes.contains(type))
+            return type;
+        if (type instanceof IntType)
+            return IntType.INSTANCE;
+        if (type instanceof BoolType)
+            return BoolType.INSTANCE;
+        if (type instanceof StringType)
+            return StringType.INSTANCE;
+        if (type instanceof NullType)
+            return NullType.INSTANCE;
+        if (type instanceof NoType)
+            return NoType.INSTANCE;
+        if (type instanceof ClassType)
+            return classType(((ClassType) type).getClassName().getName());
+        if (type instanceof ListType)
+            return listType((ListType) type);
+        if (type instanceof FptrType)
+            return fptrType(((FptrType) type).getArgumentsTypes(), ((FptrType) type).getReturnType());
+        return type;
+    }
+
+    public ClassType classType(String className) {
+        List<Object> key = new ArrayList<>(2);
+        key.add(CLASS_KEY);
+        key.add(className);
+        return (ClassType) internUnder(key, () -> new ClassType(new Identifier(className)));
+    }
+
+    public ListType listType(ArrayList<ListNameType> elementsTypes) {
+        return listType(new ListType(elementsTypes));
+    }
+
+    //the key has one (name, type, count) triple per segment of the interned list, so list(N # T) is as cheap to
+    //intern as list(T); unnamed elements of the same type are merged the way ListType merges them, so
+    //list(int,int,int) and list(3 # int) get the same key
+    public ListType listType(ListType type) {
+        List<ListSegment> segments = type.getSegments();
+        List<Object> key = new ArrayList<>(3 * segments.size() + 1);
+        key.add(LIST_KEY);
+        for (ListSegment segment : segments) {
+            String name = segment.getElementType().getName().getName();
+            Type internedType = intern(segment.getElementType().getType());
+            int last = key.size() - 3;
+            if (name.equals("") && last > 0 && key.get(last).equals("") && key.get(last + 1) == internedType) {
+                key.set(last + 2, (Integer) key.get(last + 2) + segment.getCount());
+                continue;
+            }
+            key.add(name);
+            key.add(internedType);
+            key.add(segment.getCount());
+        }
+        return (ListType) internUnder(key, () -> {
+            ListType internedList = new ListType();
+            for (ListSegment segment : segments) {
+                ListNameType elementType = segment.getElementType();
+                Type internedType = intern(elementType.getType());
+                internedList.addElementTypes(internedType == elementType.getType() ?
+                        elementType : new ListNameType(elementType.getName(), internedType), segment.getCount());
+            }
+            return internedList;
+        });
+    }
+
+    public FptrType fptrType(ArrayList<Type> argumentsTypes, Type returnType) {
+        List<Object> key = new ArrayList<>(argumentsTypes.size() + 2);
+        key.add(FPTR_KEY);
+        Type internedReturnType = intern(returnType);
+        key.add(internedReturnType);
+        ArrayList<Type> internedArguments = new ArrayList<>(argumentsTypes.size());
+        for (Type argumentType : argumentsTypes) {
+            Type internedType = intern(argumentType);
+            key.add(internedType);
+            internedArguments.add(internedType);
+        }
+        return (FptrType) internUnder(key, () -> new FptrType(internedArguments, internedReturnType));
+    }
+
+    //the type interned under the key, the one newType makes when there is none yet
+    private Type internUnder(List<Object> key, Supplier<Type> newType) {
+        Type type = internedTypes.get(key);
+        if (type != null)
+            return type;
+        Type created = newType.get();
+        type = internedTypes.putIfAbsent(key, created);
+        if (type != null)
+            return type;
+        canonicalTypes.add(created);
+        return created;
+    }
+}
@@ -0,0 +1,13 @@
+package main.ast.types;
+
+//One per subclass of Type, so checks on the kind of a type need no instanceof.
+public enum TypeKind {
+    INT,
+    BOOL,
+    STRING,
+    CLASS,
+    FPTR,
+    LIST,
+    NULL,
+    NO_TYPE
+}
@@ -1,6 +1,7 @@
 package main.ast.types.functionPointer;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 import java.util.ArrayList;
 
@@ -9,11 +10,13 @@ public class FptrType extends Type {
     private Type returnType;
 
     public FptrType() {
+        super(TypeKind.FPTR);
     }
 
     //empty ArrayList when no arguments
     //NullType on returnType when void
     public FptrType(ArrayList<Type> argumentsTypes, Type returnType) {
+        super(TypeKind.FPTR);
         this.argumentsTypes = argumentsTypes;
         this.returnType = returnType;
     }
@@ -0,0 +1,27 @@
+package main.ast.types.list;
+
+//count consecutive elements of a list type that all have the same name and type
+public class ListSegment {
+    private final ListNameType elementType;
+    private final int count;
+    //index of the first element of the segment in its list
+    private final int start;
+
+    ListSegment(ListNameType elementType, int count, int start) {
+        this.elementType = elementType;
+        this.count = count;
+        this.start = start;
+    }
+
+    public ListNameType getElementType() {
+        return elementType;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getStart() {
+        return start;
+    }
+}
@@ -1,35 +1,131 @@
 package main.ast.types.list;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+//Elements are stored as segments of equal consecutive elements, so list(N # T) is one segment whatever N is.
 public class ListType extends Type {
-    private ArrayList<ListNameType> elementsTypes = new ArrayList<>();
+    private final ArrayList<ListSegment> segments = new ArrayList<>();
+    private int size = 0;
+    //computed on first use and dropped whenever an element is added; interned list types are shared by the
+    //threads type checking in parallel, so they are published through volatile fields
+    private volatile Map<String, ListNameType> elementsByName;
+    private volatile boolean hasDuplicateName;
+    private volatile Boolean homogeneous;
 
     public ListType() {
+        super(TypeKind.LIST);
     }
 
     public ListType(ArrayList<ListNameType> elementsTypes) {
-        this.elementsTypes = elementsTypes;
+        this();
+        for(ListNameType listNameType : elementsTypes) {
+            addElementType(listNameType);
+        }
     }
 
     public ListType(int listSize, ListNameType listNameType) {
-        for(int i=0; i < listSize; i++) {
-            elementsTypes.add(listNameType);
+        this();
+        addElementTypes(listNameType, listSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public List<ListSegment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    public ListNameType getElementType(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        int low = 0;
+        int high = segments.size() - 1;
+        while(low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if(segments.get(middle).getStart() <= index)
+                low = middle;
+            else
+                high = middle - 1;
         }
+        return segments.get(low).getElementType();
     }
 
-    public ArrayList<ListNameType> getElementsTypes() {
-        return elementsTypes;
+    //the first element with the given name, null when there is none
+    public ListNameType findElement(String name) {
+        return indexNames().get(name);
     }
 
-    public void setElementsTypes(ArrayList<ListNameType> elementsTypes) {
-        this.elementsTypes = elementsTypes;
+    public boolean hasDuplicateName() {
+        indexNames();
+        return hasDuplicateName;
+    }
+
+    private Map<String, ListNameType> indexNames() {
+        Map<String, ListNameType> indexedNames = elementsByName;
+        if(indexedNames != null)
+            return indexedNames;
+        indexedNames = new HashMap<>();
+        boolean foundDuplicateName = false;
+        for(ListSegment segment : segments) {
+            String name = segment.getElementType().getName().getName();
+            if(name.equals(""))
+                continue;
+            if(segment.getCount() > 1 || indexedNames.containsKey(name))
+                foundDuplicateName = true;
+            indexedNames.putIfAbsent(name, segment.getElementType());
+        }
+        hasDuplicateName = foundDuplicateName;
+        elementsByName = indexedNames;
+        return indexedNames;
+    }
+
+    //whether all elements have the same type is decided by the type checker, since it depends on subtyping;
+    //null when it has not been decided yet
+    public Boolean getHomogeneous() {
+        return homogeneous;
+    }
+
+    public void setHomogeneous(boolean homogeneous) {
+        this.homogeneous = homogeneous;
     }
 
     public void addElementType(ListNameType listNameType) {
-        this.elementsTypes.add(listNameType);
+        addElementTypes(listNameType, 1);
+    }
+
+    public void addElementTypes(ListNameType listNameType, int count) {
+        if(count <= 0)
+            return;
+        int last = segments.size() - 1;
+        if(last >= 0 && isSameElement(segments.get(last).getElementType(), listNameType)) {
+            ListSegment lastSegment = segments.get(last);
+            segments.set(last, new ListSegment(lastSegment.getElementType(), lastSegment.getCount() + count, lastSegment.getStart()));
+        } else {
+            segments.add(new ListSegment(listNameType, count, size));
+        }
+        size += count;
+        elementsByName = null;
+        homogeneous = null;
+    }
+
+    //unnamed elements of the very same type can not be told apart
+    private static boolean isSameElement(ListNameType first, ListNameType second) {
+        if(first == second)
+            return true;
+        return first.getName().getName().equals("") && second.getName().getName().equals("") &&
+                first.getType() == second.getType();
     }
 
     @Override
@@ -1,8 +1,15 @@
 package main.ast.types.single;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class BoolType extends Type {
+    public static final BoolType INSTANCE = new BoolType();
+
+    public BoolType() {
+        super(TypeKind.BOOL);
+    }
+
     @Override
     public String toString() {
         return "BoolType";
@@ -2,11 +2,13 @@ package main.ast.types.single;
 
 import main.ast.nodes.expression.Identifier;
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class ClassType extends Type {
     private Identifier className;
 
     public ClassType(Identifier className) {
+        super(TypeKind.CLASS);
         this.className = className;
     }
 
@@ -1,8 +1,15 @@
 package main.ast.types.single;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class IntType extends Type {
+    public static final IntType INSTANCE = new IntType();
+
+    public IntType() {
+        super(TypeKind.INT);
+    }
+
     @Override
     public String toString() {
         return "IntType";
@@ -1,8 +1,15 @@
 package main.ast.types.single;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class StringType extends Type {
+    public static final StringType INSTANCE = new StringType();
+
+    public StringType() {
+        super(TypeKind.STRING);
+    }
+
     @Override
     public String toString() {
         return "StringType";
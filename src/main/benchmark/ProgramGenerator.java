@@ -0,0 +1,318 @@
+package main.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//Generates Sophia programs of any size, together with the output the compiler is expected to print for them
+//(in the format of samples/*-ans.txt).
+//Classes come in inheritance chains of the configured depth. Every class has fields of all kinds of types,
+//a constructor and methods with locals, nested for/foreach loops, conditionals, method calls through the
+//hierarchy and function pointers, so that every construct of the grammar is used.
+//With a positive number of injected errors, that many statements are replaced by statements with a single
+//known type error each, spread over the program; the program stays free of name errors so that the type
+//checker runs and the expected output lists the injected errors in the order the compiler reports them.
+public class ProgramGenerator {
+    private static final String SUCCESS = "Compilation successful";
+    private static final String MAIN_CLASS = "Main";
+
+    private int numberOfClasses = 10;
+    private int inheritanceDepth = 3;
+    private int methodsPerClass = 3;
+    private int localsPerMethod = 2;
+    private int loopNestingDepth = 2;
+    private int numberOfErrors = 0;
+    private long seed = 0;
+
+    private StringBuilder source;
+    private int line;
+    private List<String> expectedErrors;
+    private Random random;
+    private int numberOfStatements;
+    private int statementsLeft;
+    private int errorsLeft;
+    private String currentClassName;
+
+    public void setNumberOfClasses(int numberOfClasses) {
+        this.numberOfClasses = Math.max(1, numberOfClasses);
+    }
+
+    public void setInheritanceDepth(int inheritanceDepth) {
+        this.inheritanceDepth = Math.max(1, inheritanceDepth);
+    }
+
+    public void setMethodsPerClass(int methodsPerClass) {
+        this.methodsPerClass = Math.max(1, methodsPerClass);
+    }
+
+    public void setLocalsPerMethod(int localsPerMethod) {
+        this.localsPerMethod = Math.max(0, localsPerMethod);
+    }
+
+    public void setLoopNestingDepth(int loopNestingDepth) {
+        this.loopNestingDepth = Math.max(0, loopNestingDepth);
+    }
+
+    public void setNumberOfErrors(int numberOfErrors) {
+        this.numberOfErrors = Math.max(0, numberOfErrors);
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public static class GeneratedProgram {
+        private final String source;
+        private final String expectedOutput;
+
+        private GeneratedProgram(String source, String expectedOutput) {
+            this.source = source;
+            this.expectedOutput = expectedOutput;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        //one line per error, or the success message
+        public String getExpectedOutput() {
+            return expectedOutput;
+        }
+    }
+
+    public GeneratedProgram generate() {
+        //a first pass without errors counts the statements an error can replace, to spread the errors evenly
+        errorsLeft = 0;
+        numberOfStatements = 0;
+        generateClasses();
+        statementsLeft = numberOfStatements;
+        errorsLeft = numberOfErrors;
+        generateClasses();
+
+        StringBuilder expectedOutput = new StringBuilder();
+        if (expectedErrors.isEmpty())
+            expectedOutput.append(SUCCESS).append('\n');
+        for (String error : expectedErrors)
+            expectedOutput.append(error).append('\n');
+        return new GeneratedProgram(source.toString(), expectedOutput.toString());
+    }
+
+    private void generateClasses() {
+        source = new StringBuilder();
+        line = 1;
+        expectedErrors = new ArrayList<>();
+        random = new Random(seed);
+        for (int classIndex = 0; classIndex < numberOfClasses; classIndex++)
+            generateClass(classIndex);
+        generateMainClass();
+    }
+
+    private void emit(int indent, String text) {
+        for (int i = 0; i < indent; i++)
+            source.append("    ");
+        source.append(text).append('\n');
+        line++;
+    }
+
+    private static String className(int classIndex) {
+        return "C" + classIndex;
+    }
+
+    private static String methodName(int classIndex, int methodIndex) {
+        return "m" + classIndex + "_" + methodIndex;
+    }
+
+    private int parentOf(int classIndex) {
+        return classIndex % inheritanceDepth == 0 ? -1 : classIndex - 1;
+    }
+
+    private void generateClass(int classIndex) {
+        String name = className(classIndex);
+        currentClassName = name;
+        int parent = parentOf(classIndex);
+        emit(0, "class " + name + (parent == -1 ? "" : " extends " + className(parent)) + " {");
+        emit(1, "f" + classIndex + ": int;");
+        emit(1, "l" + classIndex + ": list(3 # int);");
+        emit(1, "s" + classIndex + ": list(x: int, y: string, z: bool);");
+        emit(1, "p" + classIndex + ": func<int, string -> int>;");
+        emit(1, "o" + classIndex + ": " + name + ";");
+        emit(0, "");
+        emit(1, "def " + name + "(x: int) {");
+        emit(2, "this.f" + classIndex + " = x;");
+        emit(2, "this.l" + classIndex + " = [x, x + 1, x + 2];");
+        emit(2, "this.s" + classIndex + " = [x, \"s\", true];");
+        emit(2, "this.p" + classIndex + " = this." + methodName(classIndex, 0) + ";");
+        emit(2, "this.o" + classIndex + " = null;");
+        emit(1, "}");
+        for (int methodIndex = 0; methodIndex < methodsPerClass; methodIndex++) {
+            emit(0, "");
+            generateMethod(classIndex, methodIndex);
+        }
+        emit(0, "");
+        emit(1, "def void n" + classIndex + "() {");
+        emit(2, "print(\"" + name + "\");");
+        emit(1, "}");
+        emit(0, "}");
+        emit(0, "");
+    }
+
+    private void generateMethod(int classIndex, int methodIndex) {
+        String name = className(classIndex);
+        emit(1, "def int " + methodName(classIndex, methodIndex) + "(a: int, b: string) {");
+        emit(2, "v0: int;");
+        emit(2, "v1: string;");
+        emit(2, "v2: bool;");
+        emit(2, "v3: list(3 # int);");
+        emit(2, "v4: list(x: int, y: string, z: bool);");
+        emit(2, "v5: func<int, string -> int>;");
+        emit(2, "v6: " + name + ";");
+        emit(2, "v7: list(2 # list(int, string));");
+        for (int local = 0; local < localsPerMethod; local++)
+            emit(2, "w" + local + ": int;");
+
+        statement(2, "v0 = a * 2 + 1 - a / 3 % 2;");
+        statement(2, "v1 = b;");
+        statement(2, "v2 = v0 > 1 && !(v0 < 0) || v0 == 3 && v1 != \"x\";");
+        statement(2, "v3 = this.l" + classIndex + ";");
+        statement(2, "v4 = [v3[0], v1, v2];");
+        statement(2, "v4.x = -v4.x;");
+        statement(2, "v5 = this." + methodName(classIndex, (methodIndex + 1) % methodsPerClass) + ";");
+        statement(2, "v6 = new " + name + "(v0);");
+        statement(2, "v6 = this;");
+        statement(2, "v7 = [[1, \"a\"], [2, \"b\"]];");
+        for (int local = 0; local < localsPerMethod; local++)
+            statement(2, "w" + local + " = v0 + " + local + ";");
+        statement(2, "v0 = v3[1]++ - --v0 + (v0--);");
+        generateLoops(2, 0, classIndex);
+        int parent = parentOf(classIndex);
+        if (parent != -1)
+            statement(2, "v0 = this." + methodName(parent, 0) + "(v0, v1);");
+        statement(2, "this.n" + classIndex + "();");
+        statement(2, "{ print(v1); print(v0); }");
+        if (methodIndex + 1 < methodsPerClass)
+            statement(2, "v0 = v6.p" + classIndex + "(v0, \"c\");");
+        emit(2, "return v0 + this.f" + classIndex + ";");
+        emit(1, "}");
+    }
+
+    private void generateLoops(int indent, int depth, int classIndex) {
+        if (depth >= loopNestingDepth)
+            return;
+        String counter = "v0";
+        if (depth % 2 == 0) {
+            emit(indent, "for (" + counter + " = 0; " + counter + " < 10; " + counter + " = " + counter + " + 1) {");
+            statement(indent + 1, "if (" + counter + " == 2) continue; else v2 = !v2;");
+            generateLoops(indent + 1, depth + 1, classIndex);
+            statement(indent + 1, "if (v2) break;");
+            emit(indent, "}");
+        } else {
+            emit(indent, "foreach (a in this.l" + classIndex + ") {");
+            statement(indent + 1, "print(a);");
+            generateLoops(indent + 1, depth + 1, classIndex);
+            emit(indent, "}");
+        }
+    }
+
+    private enum ErrorKind {
+        ASSIGN_TYPE, PRINT_LIST, CONDITION, UNDECLARED, NO_MEMBER, ARGUMENTS, ADD_BOOL, INDEX_NON_LIST
+    }
+
+    //emits the given statement, or in its place a statement with a known error if one is due here
+    private void statement(int indent, String text) {
+        numberOfStatements++;
+        if (errorsLeft > 0 && random.nextInt(statementsLeft) < errorsLeft) {
+            errorsLeft--;
+            injectError(indent);
+        } else {
+            emit(indent, text);
+        }
+        statementsLeft--;
+    }
+
+    private void injectError(int indent) {
+        ErrorKind kind = ErrorKind.values()[random.nextInt(ErrorKind.values().length)];
+        switch (kind) {
+            case ASSIGN_TYPE:
+                expect("Unsupported operand type for operator assign");
+                emit(indent, "v0 = \"error\";");
+                break;
+            case PRINT_LIST:
+                expect("Unsupported type for print");
+                emit(indent, "print(v3);");
+                break;
+            case CONDITION:
+                expect("Condition must be bool");
+                emit(indent, "if (v0) print(v0);");
+                break;
+            case UNDECLARED:
+                expect("Variable undeclared is not declared");
+                emit(indent, "undeclared = 1;");
+                break;
+            case NO_MEMBER:
+                expect("There is no member named missing in class " + currentClassName);
+                emit(indent, "this.missing = 1;");
+                break;
+            case ARGUMENTS:
+                expect("Args in method call do not match with definition");
+                emit(indent, "v0 = v5(v1);");
+                break;
+            case ADD_BOOL:
+                expect("Unsupported operand type for operator add");
+                emit(indent, "v0 = v0 + v2;");
+                break;
+            default:
+                expect("Access by index on a non-list");
+                emit(indent, "v0 = v0[1];");
+                break;
+        }
+    }
+
+    private void expect(String message) {
+        expectedErrors.add("Line:" + line + ":" + message);
+    }
+
+    private void generateMainClass() {
+        emit(0, "class " + MAIN_CLASS + " {");
+        emit(1, "def " + MAIN_CLASS + "() {");
+        //one local per inheritance chain, holding an instance of the deepest class of the chain
+        for (int classIndex = 0; classIndex < numberOfClasses; classIndex += inheritanceDepth)
+            emit(2, "c" + classIndex + ": " + className(classIndex) + ";");
+        emit(2, "r: int;");
+        emit(2, "r = 0;");
+        for (int classIndex = 0; classIndex < numberOfClasses; classIndex += inheritanceDepth) {
+            int last = Math.min(classIndex + inheritanceDepth, numberOfClasses) - 1;
+            emit(2, "c" + classIndex + " = new " + className(last) + "(" + classIndex + ");");
+            emit(2, "r = c" + classIndex + "." + methodName(classIndex, 0) + "(r, \"main\");");
+        }
+        emit(2, "print(r);");
+        emit(1, "}");
+        emit(0, "}");
+    }
+
+    //java main.benchmark.ProgramGenerator [--classes N] [--depth N] [--methods N] [--locals N] [--loops N]
+    //    [--errors N] [--seed N] OUTPUT
+    //writes OUTPUT.sop and the expected compiler output to OUTPUT-ans.txt
+    public static void main(String[] args) throws IOException {
+        ProgramGenerator programGenerator = new ProgramGenerator();
+        String output = "generated";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--classes": programGenerator.setNumberOfClasses(Integer.parseInt(args[++i])); break;
+                case "--depth": programGenerator.setInheritanceDepth(Integer.parseInt(args[++i])); break;
+                case "--methods": programGenerator.setMethodsPerClass(Integer.parseInt(args[++i])); break;
+                case "--locals": programGenerator.setLocalsPerMethod(Integer.parseInt(args[++i])); break;
+                case "--loops": programGenerator.setLoopNestingDepth(Integer.parseInt(args[++i])); break;
+                case "--errors": programGenerator.setNumberOfErrors(Integer.parseInt(args[++i])); break;
+                case "--seed": programGenerator.setSeed(Long.parseLong(args[++i])); break;
+                default: output = args[i];
+            }
+        }
+        GeneratedProgram generatedProgram = programGenerator.generate();
+        Files.write(Paths.get(output + ".sop"), generatedProgram.getSource().getBytes(StandardCharsets.UTF_8));
+        Files.write(Paths.get(output + "-ans.txt"), generatedProgram.getExpectedOutput().getBytes(StandardCharsets.UTF_8));
+    }
+}
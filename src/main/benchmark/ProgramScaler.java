@@ -0,0 +1,57 @@
+package main.benchmark;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import parsers.SophiaLexer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//Makes a bigger program out of an existing one by repeating it.
+//Every copy after the first gets its own class names (A becomes A__1, A__2, ...) so the copies
+//do not redefine each other's classes; all uses of those names inside the copy are renamed too.
+//Text between the tokens is kept, so line numbers inside a copy stay meaningful.
+public class ProgramScaler {
+    private static final String COPY_SEPARATOR = "__";
+
+    private final String source;
+    private final List<Token> tokens = new ArrayList<>();
+    private final Set<String> classNames = new HashSet<>();
+
+    public ProgramScaler(String source) {
+        this.source = source;
+        SophiaLexer sophiaLexer = new SophiaLexer(CharStreams.fromString(source));
+        sophiaLexer.removeErrorListeners();
+        Token previous = null;
+        for (Token token = sophiaLexer.nextToken(); token.getType() != Token.EOF; token = sophiaLexer.nextToken()) {
+            tokens.add(token);
+            if (previous != null && previous.getType() == SophiaLexer.CLASS && token.getType() == SophiaLexer.IDENTIFIER)
+                classNames.add(token.getText());
+            previous = token;
+        }
+    }
+
+    public String scale(int copies) {
+        StringBuilder scaled = new StringBuilder(source.length() * copies);
+        scaled.append(source);
+        for (int copy = 1; copy < copies; copy++) {
+            scaled.append('\n');
+            appendCopy(scaled, copy);
+        }
+        return scaled.toString();
+    }
+
+    private void appendCopy(StringBuilder scaled, int copy) {
+        int end = 0;
+        for (Token token : tokens) {
+            scaled.append(source, end, token.getStartIndex());
+            scaled.append(token.getText());
+            if (token.getType() == SophiaLexer.IDENTIFIER && classNames.contains(token.getText()))
+                scaled.append(COPY_SEPARATOR).append(copy);
+            end = token.getStopIndex() + 1;
+        }
+        scaled.append(source, end, source.length());
+    }
+}
@@ -0,0 +1,286 @@
+package main.benchmark;
+
+import main.CompilationContext;
+import main.SophiaBatchCompiler;
+import main.SophiaCompiler;
+import main.ast.nodes.Program;
+import main.visitor.nameAnalyzer.NameAnalyzer;
+import main.visitor.typeChecker.TypeChecker;
+import main.visitor.utils.ErrorReporter;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import parsers.SophiaLexer;
+import parsers.SophiaParser;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+//Measures every phase of the compiler on its own, for each input file and scaled copies of it:
+//  java -cp <classes>:antlr-4.8-complete.jar main.benchmark.SophiaBenchmark
+//      [--warmup N] [--iterations N] [--scale 1,10,100] [--generate 10,1000,100000]
+//      [--save FILE] [--compare FILE] [--threshold PERCENT] [paths...]
+//Inputs are the given files (samples/ by default) repeated as often as --scale says, and programs made by the
+//ProgramGenerator with as many classes as --generate says.
+//Only the phase itself is timed, the work it depends on (parsing for the checkers, ...) is redone untimed
+//before every operation, since the passes modify the AST. For each (input, phase) the throughput, the
+//median and 99th percentile latency and the bytes allocated per operation are printed.
+//--save writes the throughputs to a file, --compare reads such a file and exits with 1 when a phase got
+//slower than the threshold allows, so runs can be gated against a baseline.
+public class SophiaBenchmark {
+    public enum Phase { LEX, PARSE, NAME_ANALYSIS, TYPE_CHECK, END_TO_END }
+
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final SophiaCompiler sophiaCompiler = new SophiaCompiler();
+    //results are accumulated here so the JIT can not drop the measured work
+    private long consumed;
+
+    public SophiaBenchmark(int warmupIterations, int measuredIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threadMXBean.isThreadAllocatedMemorySupported())
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public static class Result {
+        private final String input;
+        private final Phase phase;
+        private final long[] sortedNanos;
+        private final long totalNanos;
+        private final long allocatedBytes;
+
+        private Result(String input, Phase phase, long[] nanos, long allocatedBytes) {
+            this.input = input;
+            this.phase = phase;
+            this.sortedNanos = nanos.clone();
+            Arrays.sort(this.sortedNanos);
+            long total = 0;
+            for (long operationNanos : nanos)
+                total += operationNanos;
+            this.totalNanos = total;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getInput() {
+            return input;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public double getOperationsPerSecond() {
+            return totalNanos == 0 ? 0 : sortedNanos.length * 1e9 / totalNanos;
+        }
+
+        public long getPercentileNanos(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))];
+        }
+
+        //-1 when the JVM can not count allocations per thread
+        public long getAllocatedBytesPerOperation() {
+            return allocatedBytes < 0 ? -1 : allocatedBytes / sortedNanos.length;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-32s %-14s %12.1f ops/s %10.1f us p50 %10.1f us p99 %12d B/op",
+                    input, phase, getOperationsPerSecond(), getPercentileNanos(50) / 1e3,
+                    getPercentileNanos(99) / 1e3, getAllocatedBytesPerOperation());
+        }
+    }
+
+    //returns null for the type checking phase of a program with name errors, the compiler never type checks those
+    public Result run(String input, String source, Phase phase) {
+        if (phase == Phase.TYPE_CHECK && hasNameErrors(source))
+            return null;
+        for (int i = 0; i < warmupIterations; i++)
+            measureOnce(source, phase);
+        long[] nanos = new long[measuredIterations];
+        long allocatedBytes = 0;
+        for (int i = 0; i < measuredIterations; i++) {
+            long[] measurement = measureOnce(source, phase);
+            nanos[i] = measurement[0];
+            allocatedBytes = allocatedBytes < 0 || measurement[1] < 0 ? -1 : allocatedBytes + measurement[1];
+        }
+        return new Result(input, phase, nanos, allocatedBytes);
+    }
+
+    private long allocatedBytes() {
+        if (!threadMXBean.isThreadAllocatedMemoryEnabled())
+            return -1;
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    //returns {elapsed nanoseconds, allocated bytes} of the timed part only
+    private long[] measureOnce(String source, Phase phase) {
+        long startBytes;
+        long startNanos;
+        switch (phase) {
+            case LEX: {
+                SophiaLexer sophiaLexer = new SophiaLexer(CharStreams.fromString(source));
+                startBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+                int numberOfTokens = 0;
+                while (sophiaLexer.nextToken().getType() != Token.EOF)
+                    numberOfTokens++;
+                consumed += numberOfTokens;
+                break;
+            }
+            case PARSE: {
+                CommonTokenStream tokens = new CommonTokenStream(new SophiaLexer(CharStreams.fromString(source)));
+                tokens.fill();
+                startBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+                Program program = new SophiaParser(tokens).sophia().sophiaProgram;
+                consumed += program.getClasses().size();
+                break;
+            }
+            case NAME_ANALYSIS: {
+                Program program = parse(source);
+                CompilationContext context = new CompilationContext();
+                startBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+                new NameAnalyzer(program, context).analyze();
+                consumed += context.getClassHierarchy().hashCode();
+                break;
+            }
+            case TYPE_CHECK: {
+                Program program = parse(source);
+                CompilationContext context = new CompilationContext();
+                new NameAnalyzer(program, context).analyze();
+                startBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+                program.accept(new TypeChecker(context));
+                break;
+            }
+            default: {
+                startBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+                consumed += sophiaCompiler.compile(CharStreams.fromString(source), DISCARD);
+                break;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long endBytes = allocatedBytes();
+        return new long[] {elapsedNanos, startBytes < 0 ? -1 : endBytes - startBytes};
+    }
+
+    private Program parse(String source) {
+        SophiaLexer sophiaLexer = new SophiaLexer(CharStreams.fromString(source));
+        return new SophiaParser(new CommonTokenStream(sophiaLexer)).sophia().sophiaProgram;
+    }
+
+    private boolean hasNameErrors(String source) {
+        Program program = parse(source);
+        CompilationContext context = new CompilationContext();
+        new NameAnalyzer(program, context).analyze();
+        return program.accept(new ErrorReporter(context.getDiagnostics(), DISCARD)) > 0;
+    }
+
+    private List<Result> runAllPhases(String input, String source) {
+        List<Result> results = new ArrayList<>();
+        for (Phase phase : Phase.values()) {
+            Result result = run(input, source, phase);
+            if (result == null)
+                continue;
+            System.out.println(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static List<Integer> parseSizes(String sizes) {
+        List<Integer> parsedSizes = new ArrayList<>();
+        for (String size : sizes.split(","))
+            parsedSizes.add(Integer.parseInt(size.trim()));
+        return parsedSizes;
+    }
+
+    private static Map<String, Double> readBaseline(String fileName) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length == 3)
+                baseline.put(columns[0] + " " + columns[1], Double.parseDouble(columns[2]));
+        }
+        return baseline;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int warmupIterations = 20;
+        int measuredIterations = 50;
+        List<Integer> scales = Arrays.asList(1, 10);
+        List<Integer> generatedSizes = new ArrayList<>();
+        String saveFile = null;
+        String compareFile = null;
+        double threshold = 10;
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--warmup": warmupIterations = Integer.parseInt(args[++i]); break;
+                case "--iterations": measuredIterations = Integer.parseInt(args[++i]); break;
+                case "--save": saveFile = args[++i]; break;
+                case "--compare": compareFile = args[++i]; break;
+                case "--threshold": threshold = Double.parseDouble(args[++i]); break;
+                case "--scale": scales = parseSizes(args[++i]); break;
+                case "--generate": generatedSizes = parseSizes(args[++i]); break;
+                default: paths.add(args[i]);
+            }
+        }
+        if (paths.isEmpty() && generatedSizes.isEmpty())
+            paths.add("samples");
+
+        SophiaBenchmark benchmark = new SophiaBenchmark(warmupIterations, measuredIterations);
+        List<Result> results = new ArrayList<>();
+        for (String file : SophiaBatchCompiler.collectSourceFiles(paths)) {
+            String source = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+            ProgramScaler programScaler = new ProgramScaler(source);
+            for (int scale : scales)
+                results.addAll(benchmark.runAllPhases(Paths.get(file).getFileName() + "x" + scale, programScaler.scale(scale)));
+        }
+        for (int numberOfClasses : generatedSizes) {
+            //small classes, so that the number of classes dominates and large sizes still fit in memory
+            ProgramGenerator programGenerator = new ProgramGenerator();
+            programGenerator.setNumberOfClasses(numberOfClasses);
+            programGenerator.setMethodsPerClass(1);
+            programGenerator.setLocalsPerMethod(0);
+            programGenerator.setLoopNestingDepth(1);
+            results.addAll(benchmark.runAllPhases("generated" + numberOfClasses, programGenerator.generate().getSource()));
+        }
+
+        if (saveFile != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(saveFile), false, StandardCharsets.UTF_8)) {
+                for (Result result : results)
+                    out.println(result.getInput() + " " + result.getPhase() + " " + result.getOperationsPerSecond());
+            }
+        }
+        if (compareFile != null) {
+            Map<String, Double> baseline = readBaseline(compareFile);
+            int numberOfRegressions = 0;
+            for (Result result : results) {
+                Double baselineOperationsPerSecond = baseline.get(result.getInput() + " " + result.getPhase());
+                if (baselineOperationsPerSecond == null || baselineOperationsPerSecond == 0)
+                    continue;
+                double change = (result.getOperationsPerSecond() / baselineOperationsPerSecond - 1) * 100;
+                if (change < -threshold) {
+                    System.out.printf("REGRESSION %s %s %.1f%%%n", result.getInput(), result.getPhase(), change);
+                    numberOfRegressions++;
+                }
+            }
+            if (numberOfRegressions > 0)
+                System.exit(1);
+        }
+        System.err.println("consumed " + benchmark.consumed);
+    }
+}
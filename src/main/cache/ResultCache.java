@@ -0,0 +1,261 @@
+package main.cache;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//Compilation results kept on disk, one file per result named after the SHA-256 of the compiler version and the
+//source bytes, so a source compiled before by the same compiler costs one hash and one read.
+//A hit touches its file; when the files grow past the size bound the least recently used ones are deleted.
+//Several threads and processes can share a directory: results are written to a temporary file and moved in
+//place, and a file that disappears or can not be read is a miss. The cache is only an optimization, its
+//failures are never reported.
+public class ResultCache {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final String RESULT_SUFFIX = ".result";
+    private static final int MAGIC = 0x534F5052;
+    private static final byte SUCCESSFUL = 0;
+    private static final byte FAILED = 1;
+
+    public static class Result {
+        private final int numberOfErrors;
+        private final String output;
+
+        public Result(int numberOfErrors, String output) {
+            this.numberOfErrors = numberOfErrors;
+            this.output = output;
+        }
+
+        //0 when the compilation was successful
+        public int getNumberOfErrors() {
+            return numberOfErrors;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+    }
+
+    private static class ResultFile {
+        private final Path path;
+        private final FileTime lastUsed;
+        private final long size;
+
+        private ResultFile(Path path, FileTime lastUsed, long size) {
+            this.path = path;
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final String version;
+    //the size of the result files, -1 until the directory is first listed; guarded by this
+    private long totalBytes = -1;
+
+    public ResultCache(Path directory, long maxBytes, String version) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.version = version;
+    }
+
+    //The version to build a cache for: the given one followed by the SHA-256 of the jar or of every class file
+    //in the directory the compiler class was loaded from, so results of an older build of the compiler are never
+    //read even when the given version was not changed. null when they can not be read.
+    public static String buildVersion(String version, Class<?> compilerClass) {
+        MessageDigest digest = newDigest();
+        try {
+            URL location = compilerClass.getProtectionDomain().getCodeSource().getLocation();
+            Path build = Paths.get(location.toURI());
+            if (Files.isDirectory(build)) {
+                List<Path> classFiles;
+                try (Stream<Path> walk = Files.walk(build)) {
+                    classFiles = walk.filter(path -> path.toString().endsWith(".class")).sorted()
+                            .collect(Collectors.toList());
+                }
+                for (Path classFile : classFiles) {
+                    digest.update(build.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                    digest.update(Files.readAllBytes(classFile));
+                }
+            } else {
+                digest.update(Files.readAllBytes(build));
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return null;
+        }
+        return version + "-" + toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String keyOf(byte[] source) {
+        MessageDigest digest = newDigest();
+        digest.update(version.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(source);
+        return toHex(digest.digest());
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    //null when the result is not cached
+    public Result find(String key, String successOutput) {
+        Path file = directory.resolve(key + RESULT_SUFFIX);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+        Result result = decode(bytes, successOutput);
+        try {
+            if (result == null)
+                Files.deleteIfExists(file);
+            else
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            //an evicted file is still a hit
+        }
+        return result;
+    }
+
+    public void store(String key, Result result) {
+        byte[] bytes = encode(result);
+        Path file = directory.resolve(key + RESULT_SUFFIX);
+        Path temporaryFile = null;
+        long addedBytes;
+        try {
+            temporaryFile = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporaryFile, bytes);
+            //a result stored again replaces its file, only the difference in size is added
+            addedBytes = bytes.length - sizeOf(file);
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temporaryFile);
+            return;
+        }
+        synchronized (this) {
+            if (totalBytes == -1 || totalBytes + addedBytes > maxBytes)
+                evict();
+            else
+                totalBytes += addedBytes;
+        }
+    }
+
+    //a successful result is only its status, its output is the same for every source
+    private static byte[] encode(Result result) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            if (result.getNumberOfErrors() == 0) {
+                out.writeByte(SUCCESSFUL);
+            } else {
+                out.writeByte(FAILED);
+                out.writeInt(result.getNumberOfErrors());
+                byte[] output = result.getOutput().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(output.length);
+                out.write(output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    //null when the bytes are not a result, e.g. a file another process was writing without a rename
+    private static Result decode(byte[] bytes, String successOutput) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC)
+                return null;
+            byte status = in.readByte();
+            if (status == SUCCESSFUL)
+                return in.available() == 0 ? new Result(0, successOutput) : null;
+            if (status != FAILED)
+                return null;
+            int numberOfErrors = in.readInt();
+            int length = in.readInt();
+            if (numberOfErrors <= 0 || length != in.available())
+                return null;
+            byte[] output = new byte[length];
+            in.readFully(output);
+            return new Result(numberOfErrors, new String(output, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    //deletes the least recently used results until they fill at most three quarters of the bound, so the
+    //directory is not listed again for every new result
+    private void evict() {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.getFileName().toString().endsWith(RESULT_SUFFIX)).forEach(files::add);
+        } catch (IOException e) {
+            return;
+        }
+        List<ResultFile> resultFiles = new ArrayList<>();
+        long bytes = 0;
+        for (Path file : files) {
+            try {
+                ResultFile resultFile = new ResultFile(file, Files.getLastModifiedTime(file), Files.size(file));
+                resultFiles.add(resultFile);
+                bytes += resultFile.size;
+            } catch (IOException e) {
+                //deleted by another process
+            }
+        }
+        if (bytes > maxBytes) {
+            resultFiles.sort(Comparator.comparing((ResultFile resultFile) -> resultFile.lastUsed));
+            long target = maxBytes / 4 * 3;
+            for (int i = 0; i < resultFiles.size() && bytes > target; i++) {
+                if (deleteQuietly(resultFiles.get(i).path))
+                    bytes -= resultFiles.get(i).size;
+            }
+        }
+        totalBytes = bytes;
+    }
+
+    //0 when there is no such file
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        if (file == null)
+            return false;
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
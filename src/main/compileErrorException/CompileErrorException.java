@@ -9,6 +9,20 @@ public class CompileErrorException extends Exception {
         this.message = message;
     }
 
+    public int getLine() {
+        return line;
+    }
+
+    //the same error reported at another line, for errors of code that only moved
+    public CompileErrorException atLine(int line) {
+        return new CompileErrorException(line, message);
+    }
+
+    //the message without the line it is at
+    public String getDescription() {
+        return message;
+    }
+
     public String getMessage() {
         return "Line:" + this.line + ":" + this.message;
     }
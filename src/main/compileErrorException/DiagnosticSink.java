@@ -0,0 +1,151 @@
+package main.compileErrorException;
+
+import main.ast.nodes.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+
+//Collects the errors the passes of one compilation report.
+//Nodes do not hold errors themselves: almost none ever get one.
+//Every thread reports into a buffer of its own, so classes type checked in parallel never wait for each other.
+//drain() merges the buffers into the canonical order: phase, then the position of the node in the program,
+//then the order the errors of the node were reported in. That is the order the sequential compiler always
+//printed, so the output does not depend on how the work was split between threads.
+public class DiagnosticSink {
+    public enum Phase { NAME_ANALYSIS, TYPE_CHECKING }
+
+    private static class Diagnostic {
+        private final Node node;
+        private final CompileErrorException error;
+        private final Phase phase;
+        private final int sequence;
+        private int rank;
+
+        private Diagnostic(Node node, CompileErrorException error, Phase phase, int sequence) {
+            this.node = node;
+            this.error = error;
+            this.phase = phase;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final Comparator<Diagnostic> CANONICAL_ORDER = Comparator
+            .comparing((Diagnostic diagnostic) -> diagnostic.phase)
+            .thenComparingInt(diagnostic -> diagnostic.rank)
+            .thenComparingInt(diagnostic -> diagnostic.sequence);
+
+    //only ever touched by the thread it belongs to until drain()
+    private static class Buffer {
+        private final ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+        private final Map<Node, Integer> numberOfErrorsByNode = new IdentityHashMap<>();
+    }
+
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Buffer> threadBuffer = ThreadLocal.withInitial(() -> {
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    });
+    private volatile Phase phase = Phase.NAME_ANALYSIS;
+
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+
+    public void report(Node node, CompileErrorException error) {
+        if(!Node.isCatchErrorsActive)
+            return;
+        Buffer buffer = threadBuffer.get();
+        buffer.diagnostics.add(new Diagnostic(node, error, phase, buffer.diagnostics.size()));
+        buffer.numberOfErrorsByNode.merge(node, 1, Integer::sum);
+    }
+
+    //these two only see what the calling thread reported; a pass only asks about the nodes it checks itself
+    public boolean hasErrors(Node node) {
+        return getNumberOfErrors(node) != 0;
+    }
+
+    public int getNumberOfErrors(Node node) {
+        return threadBuffer.get().numberOfErrorsByNode.getOrDefault(node, 0);
+    }
+
+    //the number of errors the calling thread has reported since the last drain()
+    public int getNumberReported() {
+        return threadBuffer.get().diagnostics.size();
+    }
+
+    //the errors the calling thread reported after getNumberReported() returned mark, in the order they were reported
+    public void forEachReportedSince(int mark, BiConsumer<Node, CompileErrorException> action) {
+        List<Diagnostic> diagnostics = threadBuffer.get().diagnostics;
+        for(int i = mark; i < diagnostics.size(); i++)
+            action.accept(diagnostics.get(i).node, diagnostics.get(i).error);
+    }
+
+    //call these and drain() only while no pass is running
+    public int size() {
+        int size = 0;
+        for(Buffer buffer : buffers)
+            size += buffer.diagnostics.size();
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public Set<Node> getNodesWithErrors() {
+        Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Buffer buffer : buffers)
+            nodes.addAll(buffer.numberOfErrorsByNode.keySet());
+        return nodes;
+    }
+
+    //removes all errors and returns them in the canonical order; ranks give the position of every node with
+    //errors in the program, errors of nodes without a rank are dropped
+    public List<CompileErrorException> drain(Map<Node, Integer> ranks) {
+        List<List<Diagnostic>> sortedBuffers = new ArrayList<>();
+        for(Buffer buffer : buffers) {
+            List<Diagnostic> ranked = new ArrayList<>(buffer.diagnostics.size());
+            for(Diagnostic diagnostic : buffer.diagnostics) {
+                Integer rank = ranks.get(diagnostic.node);
+                if(rank == null)
+                    continue;
+                diagnostic.rank = rank;
+                ranked.add(diagnostic);
+            }
+            ranked.sort(CANONICAL_ORDER);
+            sortedBuffers.add(ranked);
+        }
+        clear();
+        return merge(sortedBuffers);
+    }
+
+    private static List<CompileErrorException> merge(List<List<Diagnostic>> sortedBuffers) {
+        //k-way merge, the heap holds {buffer, position in the buffer} of the next error of every buffer
+        PriorityQueue<int[]> heads = new PriorityQueue<>((first, second) -> CANONICAL_ORDER.compare(
+                sortedBuffers.get(first[0]).get(first[1]), sortedBuffers.get(second[0]).get(second[1])));
+        int total = 0;
+        for(int i = 0; i < sortedBuffers.size(); i++) {
+            total += sortedBuffers.get(i).size();
+            if(!sortedBuffers.get(i).isEmpty())
+                heads.add(new int[] {i, 0});
+        }
+        List<CompileErrorException> merged = new ArrayList<>(total);
+        while(!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<Diagnostic> buffer = sortedBuffers.get(head[0]);
+            merged.add(buffer.get(head[1]).error);
+            if(head[1] + 1 < buffer.size())
+                heads.add(new int[] {head[0], head[1] + 1});
+        }
+        return merged;
+    }
+
+    public void clear() {
+        for(Buffer buffer : buffers) {
+            buffer.diagnostics.clear();
+            buffer.numberOfErrorsByNode.clear();
+        }
+    }
+}
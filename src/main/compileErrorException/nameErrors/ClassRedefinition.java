@@ -1,9 +1,8 @@
 package main.compileErrorException.nameErrors;
 
+import main.CompilationContext;
 import main.ast.nodes.declaration.classDec.ClassDeclaration;
 import main.compileErrorException.CompileErrorException;
-import main.symbolTable.SymbolTable;
-import main.symbolTable.exceptions.ItemAlreadyExistsException;
 import main.symbolTable.items.ClassSymbolTableItem;
 
 public class ClassRedefinition extends CompileErrorException {
@@ -14,16 +13,13 @@ public class ClassRedefinition extends CompileErrorException {
         this.classDeclaration = classDeclaration;
     }
 
-    public void handleException() {
+    public void handleException(CompilationContext context) {
         String newName = this.classDeclaration.getClassName().getName() + "_";
         this.classDeclaration.getClassName().setName(newName);
         ClassSymbolTableItem symbolTableActorItem = new ClassSymbolTableItem(this.classDeclaration);
-        symbolTableActorItem.setClassSymbolTable(SymbolTable.top);
-        try {
-            SymbolTable.root.put(symbolTableActorItem);
-        } catch (ItemAlreadyExistsException exception) {
-            this.handleException();
-        }
+        symbolTableActorItem.setClassSymbolTable(context.getTop());
+        if (!context.getRoot().tryPut(symbolTableActorItem))
+            this.handleException(context);
     }
 
 }
@@ -0,0 +1,172 @@
+package main.incremental;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.NewClassInstance;
+import main.ast.types.Type;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListSegment;
+import main.ast.types.list.ListType;
+import main.ast.types.single.ClassType;
+
+import java.util.*;
+
+//What type checking one class can learn about the classes of the program: whether they exist, their parents
+//and the declared types of their members. The signature of a class puts all of that in a string, so the result
+//of checking a class stays valid as long as the signatures it can reach are the same.
+//A class reaches the classes its own code names and, from there, the classes named in their signatures.
+class ClassInterfaces {
+    static final String ABSENT = "";
+
+    private final Map<String, String> signatures = new HashMap<>();
+    //class name -> the classes whose signature names it
+    private final Map<String, Set<String>> namedBy = new HashMap<>();
+
+    ClassInterfaces(Program program) {
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            String className = classDeclaration.getClassName().getName();
+            Set<String> names = new HashSet<>();
+            signatures.put(className, signature(classDeclaration, names));
+            for(String name : names)
+                namedBy.computeIfAbsent(name, key -> new HashSet<>()).add(className);
+        }
+    }
+
+    Map<String, String> getSignatures() {
+        return signatures;
+    }
+
+    //the classes whose signature is not the one in previousSignatures and the classes whose signature reaches
+    //one of them
+    Set<String> findAffected(Map<String, String> previousSignatures) {
+        Set<String> affected = new HashSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        Set<String> names = new HashSet<>(signatures.keySet());
+        names.addAll(previousSignatures.keySet());
+        for(String name : names) {
+            if(!signatures.getOrDefault(name, ABSENT).equals(previousSignatures.getOrDefault(name, ABSENT))) {
+                affected.add(name);
+                queue.add(name);
+            }
+        }
+        while(!queue.isEmpty()) {
+            for(String className : namedBy.getOrDefault(queue.poll(), Collections.emptySet())) {
+                if(affected.add(className))
+                    queue.add(className);
+            }
+        }
+        return affected;
+    }
+
+    //the classes named anywhere in the class, the class itself included
+    static Set<String> namedClasses(List<Node> classNodes) {
+        Set<String> names = new HashSet<>();
+        for(Node node : classNodes) {
+            if(node instanceof ClassDeclaration) {
+                ClassDeclaration classDeclaration = (ClassDeclaration) node;
+                names.add(classDeclaration.getClassName().getName());
+                if(classDeclaration.getParentClassName() != null)
+                    names.add(classDeclaration.getParentClassName().getName());
+            } else if(node instanceof VarDeclaration) {
+                addClassNames(((VarDeclaration) node).getType(), names);
+            } else if(node instanceof MethodDeclaration) {
+                addClassNames(((MethodDeclaration) node).getReturnType(), names);
+            } else if(node instanceof NewClassInstance) {
+                addClassNames(((NewClassInstance) node).getClassType(), names);
+            }
+        }
+        return names;
+    }
+
+    private static void addClassNames(Type type, Set<String> names) {
+        if(type == null)
+            return;
+        switch(type.getKind()) {
+            case CLASS:
+                names.add(((ClassType) type).getClassName().getName());
+                break;
+            case LIST:
+                for(ListSegment segment : ((ListType) type).getSegments())
+                    addClassNames(segment.getElementType().getType(), names);
+                break;
+            case FPTR:
+                for(Type argumentType : ((FptrType) type).getArgumentsTypes())
+                    addClassNames(argumentType, names);
+                addClassNames(((FptrType) type).getReturnType(), names);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String signature(ClassDeclaration classDeclaration, Set<String> names) {
+        StringBuilder signature = new StringBuilder("class ").append(classDeclaration.getClassName().getName());
+        if(classDeclaration.getParentClassName() != null) {
+            String parentName = classDeclaration.getParentClassName().getName();
+            signature.append(" extends ").append(parentName);
+            names.add(parentName);
+        }
+        for(FieldDeclaration fieldDeclaration : classDeclaration.getFields()) {
+            VarDeclaration varDeclaration = fieldDeclaration.getVarDeclaration();
+            signature.append(";field ").append(varDeclaration.getVarName().getName()).append(':');
+            appendType(signature, varDeclaration.getType(), names);
+        }
+        ConstructorDeclaration constructorDeclaration = classDeclaration.getConstructor();
+        if(constructorDeclaration != null)
+            appendMethod(signature.append(";constructor "), constructorDeclaration, names);
+        for(MethodDeclaration methodDeclaration : classDeclaration.getMethods())
+            appendMethod(signature.append(";method "), methodDeclaration, names);
+        return signature.toString();
+    }
+
+    private static void appendMethod(StringBuilder signature, MethodDeclaration methodDeclaration, Set<String> names) {
+        signature.append(methodDeclaration.getMethodName().getName()).append('(');
+        for(VarDeclaration argument : methodDeclaration.getArgs()) {
+            appendType(signature, argument.getType(), names);
+            signature.append(',');
+        }
+        signature.append("):");
+        appendType(signature, methodDeclaration.getReturnType(), names);
+    }
+
+    private static void appendType(StringBuilder signature, Type type, Set<String> names) {
+        if(type == null) {
+            signature.append('?');
+            return;
+        }
+        switch(type.getKind()) {
+            case CLASS:
+                String className = ((ClassType) type).getClassName().getName();
+                signature.append("class ").append(className);
+                names.add(className);
+                break;
+            case LIST:
+                signature.append("list(");
+                for(ListSegment segment : ((ListType) type).getSegments()) {
+                    signature.append(segment.getCount()).append('#')
+                            .append(segment.getElementType().getName().getName()).append(':');
+                    appendType(signature, segment.getElementType().getType(), names);
+                    signature.append(',');
+                }
+                signature.append(')');
+                break;
+            case FPTR:
+                signature.append("func<");
+                for(Type argumentType : ((FptrType) type).getArgumentsTypes()) {
+                    appendType(signature, argumentType, names);
+                    signature.append(',');
+                }
+                signature.append("->");
+                appendType(signature, ((FptrType) type).getReturnType(), names);
+                signature.append('>');
+                break;
+            default:
+                signature.append(type.getKind().name());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package main.incremental;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.compileErrorException.CompileErrorException;
+import main.compileErrorException.DiagnosticSink;
+import main.visitor.utils.NodeLister;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+//One class of the source, parsed once and kept for as long as its tokens stay the same, together with the
+//errors type checking it reported the last time it was checked.
+class ClassUnit {
+    private final ByteBuffer fingerprint;
+    private final ClassDeclaration classDeclaration;
+    //name analysis renames a redefined class, the next compilation starts from the parsed name again
+    private final String className;
+    private final ArrayList<Node> nodes;
+    private final Set<String> namedClasses;
+    //the last type check of the class, errors by the position of their node in nodes; null when there is none
+    private int[] errorNodes;
+    private CompileErrorException[] errors;
+    private int checkedAtLine;
+
+    ClassUnit(ByteBuffer fingerprint, ClassDeclaration classDeclaration) {
+        this.fingerprint = fingerprint;
+        this.classDeclaration = classDeclaration;
+        this.className = classDeclaration.getClassName().getName();
+        this.nodes = NodeLister.listNodes(classDeclaration);
+        this.namedClasses = ClassInterfaces.namedClasses(nodes);
+    }
+
+    ByteBuffer getFingerprint() {
+        return fingerprint;
+    }
+
+    ClassDeclaration getClassDeclaration() {
+        return classDeclaration;
+    }
+
+    //the same tokens found again starting at another line
+    void reuseAt(int line) {
+        classDeclaration.getClassName().setName(className);
+        int offset = line - classDeclaration.getLine();
+        if(offset == 0)
+            return;
+        Set<Node> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Node node : nodes) {
+            if(moved.add(node))
+                node.setLine(node.getLine() + offset);
+        }
+    }
+
+    //whether the errors of the last type check are still the errors of the class
+    boolean isCheckValid(Set<String> affectedClasses) {
+        if(errors == null)
+            return false;
+        for(String name : namedClasses) {
+            if(affectedClasses.contains(name))
+                return false;
+        }
+        return true;
+    }
+
+    //keeps the errors reported since mark, which must all belong to this class
+    void recordCheck(DiagnosticSink diagnostics, int mark) {
+        Map<Node, Integer> positions = new IdentityHashMap<>();
+        for(int i = nodes.size() - 1; i >= 0; i--)
+            positions.put(nodes.get(i), i);
+        int numberOfErrors = diagnostics.getNumberReported() - mark;
+        int[] recordedNodes = new int[numberOfErrors];
+        CompileErrorException[] recordedErrors = new CompileErrorException[numberOfErrors];
+        int[] count = {0};
+        diagnostics.forEachReportedSince(mark, (node, error) -> {
+            Integer position = positions.get(node);
+            recordedNodes[count[0]] = position == null ? -1 : position;
+            recordedErrors[count[0]++] = error;
+        });
+        for(int position : recordedNodes) {
+            if(position == -1) {
+                forgetCheck();
+                return;
+            }
+        }
+        errorNodes = recordedNodes;
+        errors = recordedErrors;
+        checkedAtLine = classDeclaration.getLine();
+    }
+
+    void replayCheck(DiagnosticSink diagnostics) {
+        int offset = classDeclaration.getLine() - checkedAtLine;
+        for(int i = 0; i < errors.length; i++) {
+            CompileErrorException error = errors[i];
+            diagnostics.report(nodes.get(errorNodes[i]), offset == 0 ? error : error.atLine(error.getLine() + offset));
+        }
+    }
+
+    void forgetCheck() {
+        errorNodes = null;
+        errors = null;
+    }
+}
@@ -0,0 +1,392 @@
+package main.incremental;
+
+import main.CompilationContext;
+import main.SophiaCompiler;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.compileErrorException.CompileErrorException;
+import main.compileErrorException.DiagnosticSink;
+import main.visitor.nameAnalyzer.NameAnalyzer;
+import main.visitor.typeChecker.TypeChecker;
+import main.visitor.utils.ErrorReporter;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import parsers.SophiaLexer;
+import parsers.SophiaParser;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+//Compiles new versions of the same program, redoing only the work an edit can have changed.
+//The source is split into classes at their "class" tokens. A class with the same tokens as in the previous
+//compilation, line breaks included, is not parsed again; it may have moved to other lines. Only the classes
+//between the text the source shares with the last accepted one at its start and at its end are lexed again:
+//the lexer has no modes and reads at most one character past a token, so the tokens of the other classes
+//are the ones they had. Name analysis runs over the whole program, it is cheap and builds the symbol tables
+//everything else needs. A class is type checked again only when its tokens changed or when a class signature
+//its code can reach changed, see ClassInterfaces; otherwise the errors of its last check are reported again.
+//The output is always the one of SophiaCompiler.compile. Sources the lexer or the parser reject are handed to
+//a SophiaCompiler as a whole so they are reported exactly like before; the classes of the last accepted source
+//are kept for the next one.
+//Not thread safe, one instance follows one program.
+public class IncrementalCompiler {
+    private final SophiaCompiler fullCompiler = new SophiaCompiler();
+    private final SophiaLexer lexer = new SophiaLexer(null);
+    private final SophiaParser parser = new SophiaParser(null);
+    //what the lexer and the parser said about the last source, empty when they accepted it
+    private List<SyntaxError> syntaxErrors = new ArrayList<>();
+    private final ANTLRErrorListener collectingListener = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            int length = 1;
+            if(offendingSymbol instanceof Token) {
+                Token token = (Token) offendingSymbol;
+                length = Math.max(token.getStopIndex() - token.getStartIndex() + 1, 1);
+            }
+            syntaxErrors.add(new SyntaxError(line, charPositionInLine, length, msg));
+        }
+    };
+    //fingerprint -> the units of the previous compilation with that fingerprint
+    private Map<ByteBuffer, ArrayDeque<ClassUnit>> units = new HashMap<>();
+    //signatures of the classes when classes were last type checked
+    private Map<String, String> checkedSignatures = new HashMap<>();
+    //the last accepted source, its classes and the offset and line each one starts at there; a rejected source
+    //can move the classes it shares with the last one
+    private String lastText;
+    private List<ClassUnit> lastUnits = Collections.emptyList();
+    private int[] lastStarts;
+    private int[] lastLines;
+    //the last accepted source after its analysis
+    private Program lastProgram;
+    private CompilationContext lastContext;
+
+    private boolean lastCompilationFull;
+    private int numberOfParsedClasses;
+    private int numberOfReusedClasses;
+    private int numberOfCheckedClasses;
+    private int numberOfReplayedClasses;
+
+    public IncrementalCompiler() {
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(collectingListener);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+    }
+
+    //returns the number of reported errors, 0 means the compilation was successful
+    public int compile(CharStream textStream, PrintStream out) {
+        List<CompileErrorException> errors = analyze(textStream);
+        lastCompilationFull = errors == null;
+        if(lastCompilationFull) {
+            textStream.seek(0);
+            return fullCompiler.compile(textStream, out);
+        }
+        for(CompileErrorException error : errors)
+            out.println(error.getMessage());
+        if(errors.isEmpty())
+            out.println(SophiaCompiler.SUCCESS_MESSAGE);
+        return errors.size();
+    }
+
+    //the errors compile would print, null when the lexer or the parser rejects the source, see getSyntaxErrors.
+    //Type checking stops with a CancellationException when the thread is interrupted; the next analysis checks
+    //again what was cut short.
+    public List<CompileErrorException> analyze(CharStream textStream) {
+        numberOfParsedClasses = 0;
+        numberOfReusedClasses = 0;
+        numberOfCheckedClasses = 0;
+        numberOfReplayedClasses = 0;
+        List<ClassUnit> programUnits = parseClasses(textStream);
+        if(programUnits == null)
+            return null;
+
+        Program program = new Program();
+        program.setLine(1);
+        for(ClassUnit unit : programUnits)
+            program.addClass(unit.getClassDeclaration());
+        CompilationContext context = new CompilationContext();
+        ErrorReporter errorReporter = new ErrorReporter(context.getDiagnostics(), new PrintStream(OutputStream.nullOutputStream()));
+        lastProgram = program;
+        lastContext = context;
+
+        new NameAnalyzer(program, context).analyze();
+        List<CompileErrorException> errors = report(program, context, errorReporter);
+        if(!errors.isEmpty())
+            return errors;
+
+        typeCheck(program, programUnits, context);
+        return report(program, context, errorReporter);
+    }
+
+    private void typeCheck(Program program, List<ClassUnit> programUnits, CompilationContext context) {
+        DiagnosticSink diagnostics = context.getDiagnostics();
+        diagnostics.setPhase(DiagnosticSink.Phase.TYPE_CHECKING);
+        ClassInterfaces classInterfaces = new ClassInterfaces(program);
+        Set<String> affectedClasses = classInterfaces.findAffected(checkedSignatures);
+        TypeChecker typeChecker = new TypeChecker(context);
+        List<ClassUnit> checkedUnits = new ArrayList<>();
+        for(ClassUnit unit : programUnits) {
+            if(Thread.interrupted()) {
+                //these were checked against signatures checkedSignatures does not hold
+                for(ClassUnit checkedUnit : checkedUnits)
+                    checkedUnit.forgetCheck();
+                throw new CancellationException();
+            }
+            if(unit.isCheckValid(affectedClasses)) {
+                unit.replayCheck(diagnostics);
+                numberOfReplayedClasses++;
+            } else {
+                int mark = diagnostics.getNumberReported();
+                typeChecker.checkClass(unit.getClassDeclaration());
+                unit.recordCheck(diagnostics, mark);
+                checkedUnits.add(unit);
+                numberOfCheckedClasses++;
+            }
+        }
+        typeChecker.checkMainExists(program);
+        checkedSignatures = classInterfaces.getSignatures();
+    }
+
+    //the program is only walked when there is something to report
+    private List<CompileErrorException> report(Program program, CompilationContext context, ErrorReporter errorReporter) {
+        if(context.getDiagnostics().isEmpty())
+            return Collections.emptyList();
+        program.accept(errorReporter);
+        return errorReporter.getReported();
+    }
+
+    //the classes of the source in order, null when the source has to be compiled as a whole
+    private List<ClassUnit> parseClasses(CharStream textStream) {
+        String text = textStream.size() == 0 ? "" : textStream.getText(Interval.of(0, textStream.size() - 1));
+        int numberOfLastUnits = lastUnits.size();
+        //the last classes are only kept when the offsets of the stream, code points, are the ones of the text
+        int keptBefore = 0;
+        int keptAfter = numberOfLastUnits;
+        int delta = 0;
+        if(lastText != null && text.length() == textStream.size()) {
+            int limit = Math.min(lastText.length(), text.length());
+            int prefix = 0;
+            while(prefix < limit && lastText.charAt(prefix) == text.charAt(prefix))
+                prefix++;
+            int suffix = 0;
+            while(suffix < limit - prefix
+                    && lastText.charAt(lastText.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix))
+                suffix++;
+            //a class is kept when the class after it starts before the change, its last token can read that far
+            while(keptBefore + 1 < numberOfLastUnits && lastStarts[keptBefore + 1] < prefix)
+                keptBefore++;
+            keptAfter = keptBefore + 1;
+            while(keptAfter < numberOfLastUnits && lastStarts[keptAfter] < lastText.length() - suffix)
+                keptAfter++;
+            delta = text.length() - lastText.length();
+        }
+
+        syntaxErrors = new ArrayList<>();
+        lexer.setInputStream(textStream);
+        if(keptBefore > 0) {
+            int restart = lastStarts[keptBefore];
+            textStream.seek(restart);
+            lexer.setLine(lastLines[keptBefore]);
+            lexer.setCharPositionInLine(restart - text.lastIndexOf('\n', restart - 1) - 1);
+        }
+        List<Token> tokens = new ArrayList<>();
+        //the line the first class after the change starts at, lexing stops there
+        int resumeLine = -1;
+        for(Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            if(token.getType() == SophiaLexer.CLASS) {
+                while(keptAfter < numberOfLastUnits && lastStarts[keptAfter] + delta < token.getStartIndex())
+                    keptAfter++;
+                if(keptAfter < numberOfLastUnits && lastStarts[keptAfter] + delta == token.getStartIndex()) {
+                    resumeLine = token.getLine();
+                    break;
+                }
+            }
+            tokens.add(token);
+        }
+        if(!syntaxErrors.isEmpty())
+            return null;
+        if(resumeLine == -1)
+            keptAfter = numberOfLastUnits;
+
+        Map<ByteBuffer, ArrayDeque<ClassUnit>> previousUnits = units;
+        units = new HashMap<>();
+        //kept classes are taken out first, so a changed class with the same tokens does not take one of them
+        List<ClassUnit> unitsBefore = lastUnits.subList(0, keptBefore);
+        List<ClassUnit> unitsAfter = lastUnits.subList(keptAfter, numberOfLastUnits);
+        for(ClassUnit unit : unitsBefore)
+            previousUnits.get(unit.getFingerprint()).remove(unit);
+        for(ClassUnit unit : unitsAfter)
+            previousUnits.get(unit.getFingerprint()).remove(unit);
+        List<ClassUnit> programUnits = new ArrayList<>();
+        int[] starts = new int[keptBefore + tokens.size() + unitsAfter.size()];
+        int[] lines = new int[starts.length];
+        for(int i = 0; i < keptBefore; i++) {
+            ClassUnit unit = unitsBefore.get(i);
+            unit.reuseAt(lastLines[i]);
+            numberOfReusedClasses++;
+            starts[programUnits.size()] = lastStarts[i];
+            lines[programUnits.size()] = lastLines[i];
+            add(programUnits, unit);
+        }
+        int start = 0;
+        while(start < tokens.size()) {
+            int end = start + 1;
+            while(end < tokens.size() && tokens.get(end).getType() != SophiaLexer.CLASS)
+                end++;
+            List<Token> classTokens = tokens.subList(start, end);
+            if(classTokens.get(0).getType() != SophiaLexer.CLASS) {
+                collectSyntaxErrors(classTokens);
+                return reject(previousUnits, programUnits, unitsAfter);
+            }
+            ByteBuffer fingerprint = fingerprint(classTokens);
+            ArrayDeque<ClassUnit> sameTokens = previousUnits.get(fingerprint);
+            ClassUnit unit = sameTokens == null ? null : sameTokens.poll();
+            if(unit != null) {
+                unit.reuseAt(classTokens.get(0).getLine());
+                numberOfReusedClasses++;
+            } else {
+                ClassDeclaration classDeclaration = parseClass(classTokens);
+                if(classDeclaration == null) {
+                    collectSyntaxErrors(classTokens);
+                    return reject(previousUnits, programUnits, unitsAfter);
+                }
+                unit = new ClassUnit(fingerprint, classDeclaration);
+                numberOfParsedClasses++;
+            }
+            starts[programUnits.size()] = classTokens.get(0).getStartIndex();
+            lines[programUnits.size()] = classTokens.get(0).getLine();
+            add(programUnits, unit);
+            start = end;
+        }
+        if(!unitsAfter.isEmpty()) {
+            int lineOffset = resumeLine - lastLines[keptAfter];
+            for(int i = 0; i < unitsAfter.size(); i++) {
+                ClassUnit unit = unitsAfter.get(i);
+                unit.reuseAt(lastLines[keptAfter + i] + lineOffset);
+                numberOfReusedClasses++;
+                starts[programUnits.size()] = lastStarts[keptAfter + i] + delta;
+                lines[programUnits.size()] = lastLines[keptAfter + i] + lineOffset;
+                add(programUnits, unit);
+            }
+        }
+        lastText = text;
+        lastUnits = programUnits;
+        lastStarts = Arrays.copyOf(starts, programUnits.size());
+        lastLines = Arrays.copyOf(lines, programUnits.size());
+        return programUnits;
+    }
+
+    private void add(List<ClassUnit> programUnits, ClassUnit unit) {
+        units.computeIfAbsent(unit.getFingerprint(), key -> new ArrayDeque<>()).add(unit);
+        programUnits.add(unit);
+    }
+
+    //a rejected source leaves the units of the previous compilation for the next one, the new ones included
+    private List<ClassUnit> reject(Map<ByteBuffer, ArrayDeque<ClassUnit>> previousUnits, List<ClassUnit> programUnits,
+                                   List<ClassUnit> unitsAfter) {
+        for(ClassUnit unit : programUnits)
+            previousUnits.computeIfAbsent(unit.getFingerprint(), key -> new ArrayDeque<>()).add(unit);
+        for(ClassUnit unit : unitsAfter)
+            previousUnits.computeIfAbsent(unit.getFingerprint(), key -> new ArrayDeque<>()).add(unit);
+        units = previousUnits;
+        return null;
+    }
+
+    private ClassDeclaration parseClass(List<Token> classTokens) {
+        parser.setTokenStream(new CommonTokenStream(new ListTokenSource(new ArrayList<>(classTokens))));
+        try {
+            ClassDeclaration classDeclaration = parser.sophiaClass().sophiaClassRet;
+            if(parser.getCurrentToken().getType() != Token.EOF)
+                return null;
+            return classDeclaration;
+        } catch(ParseCancellationException e) {
+            return null;
+        }
+    }
+
+    //parses rejected tokens again, recovering from errors, for what a parse of the whole source would say about
+    //them: the classes before them parsed, so that parse would be at the same point when it reaches them
+    private void collectSyntaxErrors(List<Token> rejectedTokens) {
+        parser.setTokenStream(new CommonTokenStream(new ListTokenSource(new ArrayList<>(rejectedTokens))));
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.addErrorListener(collectingListener);
+        try {
+            parser.sophia();
+        } catch(RuntimeException e) {
+            //the actions of the grammar do not expect the trees error recovery builds, the errors found so far
+            //are the ones to keep
+        } finally {
+            parser.removeErrorListeners();
+            parser.setErrorHandler(new BailErrorStrategy());
+        }
+        if(syntaxErrors.isEmpty()) {
+            Token token = rejectedTokens.get(0);
+            syntaxErrors.add(new SyntaxError(token.getLine(), token.getCharPositionInLine(), 1, "syntax error"));
+        }
+    }
+
+    //the types, texts and relative lines of the tokens; what the parser builds the class from. The digest is only
+    //compared, a ByteBuffer around it is a key with the hash code and equality of its bytes
+    private static ByteBuffer fingerprint(List<Token> classTokens) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        int firstLine = classTokens.get(0).getLine();
+        ByteBuffer header = ByteBuffer.allocate(12);
+        for(Token token : classTokens) {
+            byte[] text = token.getText().getBytes(StandardCharsets.UTF_8);
+            header.clear();
+            header.putInt(token.getType()).putInt(token.getLine() - firstLine).putInt(text.length);
+            digest.update(header.array());
+            digest.update(text);
+        }
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    //the program and the symbol tables of the last accepted source, null before the first one
+    public Program getLastProgram() {
+        return lastProgram;
+    }
+
+    public CompilationContext getLastContext() {
+        return lastContext;
+    }
+
+    //why the lexer or the parser rejected the last source, empty when they accepted it. The parser only tells
+    //about the first class it rejected
+    public List<SyntaxError> getSyntaxErrors() {
+        return syntaxErrors;
+    }
+
+    //whether the last compilation was handed to a SophiaCompiler as a whole
+    public boolean isLastCompilationFull() {
+        return lastCompilationFull;
+    }
+
+    public int getNumberOfParsedClasses() {
+        return numberOfParsedClasses;
+    }
+
+    public int getNumberOfReusedClasses() {
+        return numberOfReusedClasses;
+    }
+
+    public int getNumberOfCheckedClasses() {
+        return numberOfCheckedClasses;
+    }
+
+    public int getNumberOfReplayedClasses() {
+        return numberOfReplayedClasses;
+    }
+}
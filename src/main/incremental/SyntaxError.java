@@ -0,0 +1,33 @@
+package main.incremental;
+
+//What the lexer or the parser said about a source it rejected, at the position it said it.
+public class SyntaxError {
+    private final int line;
+    private final int charPositionInLine;
+    //of the offending token, 1 when there is none
+    private final int length;
+    private final String message;
+
+    public SyntaxError(int line, int charPositionInLine, int length, String message) {
+        this.line = line;
+        this.charPositionInLine = charPositionInLine;
+        this.length = length;
+        this.message = message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getCharPositionInLine() {
+        return charPositionInLine;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,263 @@
+package main.lsp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//The JSON the language server speaks, as plain Java values: objects are Maps keeping their key order, arrays
+//are Lists, numbers are Longs or Doubles, then Strings, Booleans and null.
+class Json {
+    static class ParseException extends Exception {
+        ParseException(String message) {
+            super(message);
+        }
+    }
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    static Object parse(String text) throws ParseException {
+        Json json = new Json(text);
+        try {
+            Object value = json.readValue();
+            json.skipSpaces();
+            if(json.position != text.length())
+                throw new ParseException("unexpected text at " + json.position);
+            return value;
+        } catch(IndexOutOfBoundsException e) {
+            throw new ParseException("unexpected end of input");
+        }
+    }
+
+    static String write(Object value) {
+        StringBuilder builder = new StringBuilder();
+        write(value, builder);
+        return builder.toString();
+    }
+
+    //null when the path does not lead to a value of the type
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> getObject(Object object, String key) {
+        Object value = get(object, key);
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> getArray(Object object, String key) {
+        Object value = get(object, key);
+        return value instanceof List ? (List<Object>) value : null;
+    }
+
+    static String getString(Object object, String key) {
+        Object value = get(object, key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    //-1 when the value is not a number
+    static int getInt(Object object, String key) {
+        Object value = get(object, key);
+        return value instanceof Number ? ((Number) value).intValue() : -1;
+    }
+
+    static Object get(Object object, String key) {
+        return object instanceof Map ? ((Map<?, ?>) object).get(key) : null;
+    }
+
+    //builds an object from alternating keys and values
+    static Map<String, Object> object(Object... keysAndValues) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        for(int i = 0; i < keysAndValues.length; i += 2)
+            object.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        return object;
+    }
+
+    private void skipSpaces() {
+        while(position < text.length() && Character.isWhitespace(text.charAt(position)))
+            position++;
+    }
+
+    private void expect(char c) throws ParseException {
+        skipSpaces();
+        if(text.charAt(position) != c)
+            throw new ParseException("expected '" + c + "' at " + position);
+        position++;
+    }
+
+    private Object readValue() throws ParseException {
+        skipSpaces();
+        char c = text.charAt(position);
+        switch(c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                readWord("true");
+                return Boolean.TRUE;
+            case 'f':
+                readWord("false");
+                return Boolean.FALSE;
+            case 'n':
+                readWord("null");
+                return null;
+            default:
+                if(c == '-' || (c >= '0' && c <= '9'))
+                    return readNumber();
+                throw new ParseException("unexpected '" + c + "' at " + position);
+        }
+    }
+
+    private Map<String, Object> readObject() throws ParseException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        expect('{');
+        skipSpaces();
+        if(text.charAt(position) == '}') {
+            position++;
+            return object;
+        }
+        while(true) {
+            skipSpaces();
+            if(text.charAt(position) != '"')
+                throw new ParseException("expected a key at " + position);
+            String key = readString();
+            expect(':');
+            object.put(key, readValue());
+            skipSpaces();
+            if(text.charAt(position++) == '}')
+                return object;
+            if(text.charAt(position - 1) != ',')
+                throw new ParseException("expected ',' or '}' at " + (position - 1));
+        }
+    }
+
+    private List<Object> readArray() throws ParseException {
+        List<Object> array = new ArrayList<>();
+        expect('[');
+        skipSpaces();
+        if(text.charAt(position) == ']') {
+            position++;
+            return array;
+        }
+        while(true) {
+            array.add(readValue());
+            skipSpaces();
+            if(text.charAt(position++) == ']')
+                return array;
+            if(text.charAt(position - 1) != ',')
+                throw new ParseException("expected ',' or ']' at " + (position - 1));
+        }
+    }
+
+    private String readString() throws ParseException {
+        StringBuilder builder = new StringBuilder();
+        position++;
+        while(true) {
+            char c = text.charAt(position++);
+            if(c == '"')
+                return builder.toString();
+            if(c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            char escaped = text.charAt(position++);
+            switch(escaped) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    try {
+                        builder.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch(NumberFormatException e) {
+                        throw new ParseException("bad escape at " + position);
+                    }
+                    position += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+        }
+    }
+
+    private Object readNumber() throws ParseException {
+        int start = position;
+        boolean integral = true;
+        while(position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) != -1) {
+            if(".eE".indexOf(text.charAt(position)) != -1)
+                integral = false;
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            return integral ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+        } catch(NumberFormatException e) {
+            throw new ParseException("bad number at " + start);
+        }
+    }
+
+    private void readWord(String word) throws ParseException {
+        if(!text.startsWith(word, position))
+            throw new ParseException("unexpected text at " + position);
+        position += word.length();
+    }
+
+    private static void write(Object value, StringBuilder builder) {
+        if(value == null || value instanceof Boolean || value instanceof Number) {
+            builder.append(value);
+        } else if(value instanceof String) {
+            writeString((String) value, builder);
+        } else if(value instanceof Map) {
+            builder.append('{');
+            boolean first = true;
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if(!first)
+                    builder.append(',');
+                first = false;
+                writeString((String) entry.getKey(), builder);
+                builder.append(':');
+                write(entry.getValue(), builder);
+            }
+            builder.append('}');
+        } else if(value instanceof List) {
+            builder.append('[');
+            boolean first = true;
+            for(Object element : (List<?>) value) {
+                if(!first)
+                    builder.append(',');
+                first = false;
+                write(element, builder);
+            }
+            builder.append(']');
+        } else {
+            throw new IllegalArgumentException("not a JSON value: " + value.getClass());
+        }
+    }
+
+    private static void writeString(String string, StringBuilder builder) {
+        builder.append('"');
+        for(int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch(c) {
+                case '"': builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                default:
+                    if(c < 0x20)
+                        builder.append(String.format("\\u%04x", (int) c));
+                    else
+                        builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+}
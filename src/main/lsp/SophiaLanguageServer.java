@@ -0,0 +1,397 @@
+package main.lsp;
+
+import main.SophiaCompiler;
+import main.compileErrorException.CompileErrorException;
+import main.incremental.IncrementalCompiler;
+import main.incremental.SyntaxError;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+//A Language Server Protocol server for Sophia, speaking JSON-RPC over a pair of streams, usually stdio.
+//Documents are synced incrementally. Every open document has its own IncrementalCompiler; a change schedules a
+//check of the document a little later, and a newer change cancels the check it replaces, interrupting it if it
+//already runs. Checks publish the errors the compiler would print as diagnostics on their lines, or the syntax
+//errors of the lexer and the parser when the source does not parse. Hover and go to definition are answered from the program
+//and symbol tables of the last check.
+//Messages are read on the thread calling serve; checks, hovers and definitions run on one checker thread, so
+//they see the programs of the compilers one at a time.
+public class SophiaLanguageServer {
+    //changes closer to each other than this are checked once
+    private static final long DEBOUNCE_MILLISECONDS = 10;
+    private static final int PARSE_ERROR = -32700;
+    private static final int INVALID_REQUEST = -32600;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INTERNAL_ERROR = -32603;
+    private static final int SEVERITY_ERROR = 1;
+    private static final int INCREMENTAL_SYNC = 2;
+
+    private static class OpenDocument {
+        //changed by the reader thread, copied by the checker thread; guarded by itself
+        private final TextDocument text;
+        //only used by the checker thread
+        private IncrementalCompiler compiler = new IncrementalCompiler();
+        private int checkedVersion = Integer.MIN_VALUE;
+        //the text of the last check, null when it did not parse
+        private TextDocument checkedText;
+        //only used by the reader thread
+        private ScheduledFuture<?> check;
+
+        private OpenDocument(TextDocument text) {
+            this.text = text;
+        }
+    }
+
+    private final InputStream in;
+    private final OutputStream out;
+    //only used by the reader thread
+    private final Map<String, OpenDocument> documents = new HashMap<>();
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sophia-checker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean shutdownRequested;
+
+    public SophiaLanguageServer(InputStream in, OutputStream out) {
+        this.in = new BufferedInputStream(in);
+        this.out = new BufferedOutputStream(out);
+    }
+
+    //returns the exit code: 0 when the client asked to shut down before it exited
+    public int serve() throws IOException {
+        try {
+            String message;
+            while((message = readMessage()) != null) {
+                Object request;
+                try {
+                    request = Json.parse(message);
+                } catch(Json.ParseException e) {
+                    sendError(null, PARSE_ERROR, e.getMessage());
+                    continue;
+                }
+                if(!handle(request))
+                    return shutdownRequested ? 0 : 1;
+            }
+            return 1;
+        } finally {
+            checker.shutdownNow();
+        }
+    }
+
+    //returns false on exit
+    private boolean handle(Object request) {
+        String method = Json.getString(request, "method");
+        Object id = Json.get(request, "id");
+        Map<String, Object> params = Json.getObject(request, "params");
+        if(method == null) {
+            //a response, the server sends no requests
+            if(Json.get(request, "result") == null && Json.get(request, "error") == null)
+                sendError(id, INVALID_REQUEST, "not a request");
+            return true;
+        }
+        switch(method) {
+            case "initialize":
+                sendResult(id, initializeResult());
+                break;
+            case "initialized":
+                break;
+            case "shutdown":
+                shutdownRequested = true;
+                //behind the hovers and definitions still queued, so their answers are sent before exit stops them
+                checker.execute(() -> sendResult(id, null));
+                break;
+            case "exit":
+                return false;
+            case "textDocument/didOpen":
+                didOpen(Json.getObject(params, "textDocument"));
+                break;
+            case "textDocument/didChange":
+                didChange(Json.getObject(params, "textDocument"), Json.getArray(params, "contentChanges"));
+                break;
+            case "textDocument/didClose":
+                didClose(Json.getString(Json.getObject(params, "textDocument"), "uri"));
+                break;
+            case "textDocument/hover":
+                answer(id, params, this::hover);
+                break;
+            case "textDocument/definition":
+                answer(id, params, this::definition);
+                break;
+            default:
+                //notifications the server does not know, $/cancelRequest among them, are ignored
+                if(id != null)
+                    sendError(id, METHOD_NOT_FOUND, "unsupported method " + method);
+        }
+        return true;
+    }
+
+    private static Map<String, Object> initializeResult() {
+        Map<String, Object> capabilities = Json.object(
+                "textDocumentSync", Json.object("openClose", true, "change", INCREMENTAL_SYNC),
+                "hoverProvider", true,
+                "definitionProvider", true);
+        return Json.object(
+                "capabilities", capabilities,
+                "serverInfo", Json.object("name", "sophia", "version", SophiaCompiler.VERSION));
+    }
+
+    private void didOpen(Map<String, Object> textDocument) {
+        String uri = Json.getString(textDocument, "uri");
+        String text = Json.getString(textDocument, "text");
+        if(uri == null || text == null)
+            return;
+        OpenDocument document = new OpenDocument(new TextDocument(uri, Json.getInt(textDocument, "version"), text));
+        OpenDocument replaced = documents.put(uri, document);
+        if(replaced != null && replaced.check != null)
+            replaced.check.cancel(true);
+        scheduleCheck(document, 0);
+    }
+
+    private void didChange(Map<String, Object> textDocument, List<Object> contentChanges) {
+        OpenDocument document = documents.get(Json.getString(textDocument, "uri"));
+        if(document == null || contentChanges == null)
+            return;
+        synchronized(document.text) {
+            for(Object change : contentChanges) {
+                String newText = Json.getString(change, "text");
+                if(newText == null)
+                    continue;
+                Map<String, Object> range = Json.getObject(change, "range");
+                if(range == null) {
+                    document.text.replace(newText);
+                } else {
+                    Map<String, Object> start = Json.getObject(range, "start");
+                    Map<String, Object> end = Json.getObject(range, "end");
+                    document.text.applyChange(Json.getInt(start, "line"), Json.getInt(start, "character"),
+                            Json.getInt(end, "line"), Json.getInt(end, "character"), newText);
+                }
+            }
+            document.text.setVersion(Json.getInt(textDocument, "version"));
+        }
+        scheduleCheck(document, DEBOUNCE_MILLISECONDS);
+    }
+
+    private void didClose(String uri) {
+        OpenDocument document = documents.remove(uri);
+        if(document == null)
+            return;
+        if(document.check != null)
+            document.check.cancel(true);
+        //after the checks already running, so the empty diagnostics are the last ones
+        checker.execute(() -> publishDiagnostics(uri, null, new ArrayList<>()));
+    }
+
+    private void scheduleCheck(OpenDocument document, long delay) {
+        if(document.check != null)
+            document.check.cancel(true);
+        document.check = checker.schedule(() -> check(document), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private interface Answer {
+        Object answer(OpenDocument document, TextDocument text, int line, int character);
+    }
+
+    //answers a request about a position on the checker thread, against the text the document had when the
+    //request came: the position refers to that text even when changes came after it
+    private void answer(Object id, Map<String, Object> params, Answer answer) {
+        OpenDocument document = documents.get(Json.getString(Json.getObject(params, "textDocument"), "uri"));
+        Map<String, Object> position = Json.getObject(params, "position");
+        if(document == null || position == null) {
+            sendResult(id, null);
+            return;
+        }
+        int line = Json.getInt(position, "line");
+        int character = Json.getInt(position, "character");
+        TextDocument text;
+        synchronized(document.text) {
+            text = document.text.copy();
+        }
+        checker.execute(() -> {
+            try {
+                sendResult(id, answer.answer(document, text, line, character));
+            } catch(RuntimeException e) {
+                sendError(id, INTERNAL_ERROR, e.toString());
+            }
+        });
+    }
+
+    private void check(OpenDocument document) {
+        TextDocument text;
+        synchronized(document.text) {
+            text = document.text.copy();
+        }
+        check(document, text);
+    }
+
+    //checks the text of the document unless its version was the last one checked, then publishes the diagnostics
+    //if the text is still the current one
+    private void check(OpenDocument document, TextDocument text) {
+        if(text.getVersion() == document.checkedVersion)
+            return;
+        List<Object> diagnostics;
+        try {
+            diagnostics = analyze(document, text);
+        } catch(CancellationException e) {
+            return;
+        } catch(RuntimeException e) {
+            //a broken input must not break the checks of the next versions
+            document.compiler = new IncrementalCompiler();
+            document.checkedText = null;
+            diagnostics = new ArrayList<>();
+            diagnostics.add(diagnostic(0, 0, 0, "Compiler failed: " + e));
+        }
+        document.checkedVersion = text.getVersion();
+        synchronized(document.text) {
+            if(document.text.getVersion() != text.getVersion())
+                return;
+        }
+        publishDiagnostics(text.getUri(), text.getVersion(), diagnostics);
+    }
+
+    private List<Object> analyze(OpenDocument document, TextDocument text) {
+        List<CompileErrorException> errors = document.compiler.analyze(CharStreams.fromString(text.getText()));
+        if(errors == null) {
+            document.checkedText = null;
+            List<Object> diagnostics = new ArrayList<>();
+            for(SyntaxError error : document.compiler.getSyntaxErrors()) {
+                int start = error.getCharPositionInLine();
+                diagnostics.add(diagnostic(error.getLine() - 1, start, start + error.getLength(), error.getMessage()));
+            }
+            return diagnostics;
+        }
+        document.checkedText = text;
+        List<Object> diagnostics = new ArrayList<>(errors.size());
+        for(CompileErrorException error : errors) {
+            int line = Math.max(error.getLine() - 1, 0);
+            diagnostics.add(diagnostic(line, 0, text.getLine(line).length(), error.getDescription()));
+        }
+        return diagnostics;
+    }
+
+    private static Map<String, Object> diagnostic(int line, int startCharacter, int endCharacter, String message) {
+        return Json.object(
+                "range", range(line, startCharacter, endCharacter),
+                "severity", SEVERITY_ERROR,
+                "source", "sophia",
+                "message", message);
+    }
+
+    private static Map<String, Object> range(int line, int startCharacter, int endCharacter) {
+        return Json.object(
+                "start", Json.object("line", line, "character", startCharacter),
+                "end", Json.object("line", line, "character", endCharacter));
+    }
+
+    //version is null when the diagnostics belong to no version
+    private void publishDiagnostics(String uri, Integer version, List<Object> diagnostics) {
+        Map<String, Object> params = Json.object("uri", uri);
+        if(version != null)
+            params.put("version", version);
+        params.put("diagnostics", diagnostics);
+        sendNotification("textDocument/publishDiagnostics", params);
+    }
+
+    //null when the text did not parse or its check was cancelled; a text older than the last one checked is
+    //checked again, the check of the newer one redoes its work later
+    private SymbolLocator locate(OpenDocument document, TextDocument text) {
+        check(document, text);
+        if(document.checkedVersion != text.getVersion() || document.checkedText == null)
+            return null;
+        return new SymbolLocator(document.compiler.getLastProgram(), document.compiler.getLastContext(),
+                document.checkedText);
+    }
+
+    private Object hover(OpenDocument document, TextDocument text, int line, int character) {
+        SymbolLocator locator = locate(document, text);
+        SymbolLocator.Symbol symbol = locator == null ? null : locator.find(line, character);
+        if(symbol == null)
+            return null;
+        String value = "```sophia\n" + symbol.getDescription() + "\n```";
+        if(symbol.getClassName() != null)
+            value += "\nin class " + symbol.getClassName();
+        return Json.object("contents", Json.object("kind", "markdown", "value", value));
+    }
+
+    private Object definition(OpenDocument document, TextDocument text, int line, int character) {
+        SymbolLocator locator = locate(document, text);
+        SymbolLocator.Symbol symbol = locator == null ? null : locator.find(line, character);
+        if(symbol == null || symbol.getDeclaration() == null)
+            return null;
+        int column = locator.findColumn(symbol.getDeclaration());
+        return Json.object(
+                "uri", document.checkedText.getUri(),
+                "range", range(symbol.getDeclaration().getLine() - 1, column, column + symbol.getDeclaration().getName().length()));
+    }
+
+    //the content of the next message, null at the end of the input
+    private String readMessage() throws IOException {
+        int contentLength = -1;
+        String header;
+        while((header = readHeader()) != null) {
+            if(header.isEmpty()) {
+                if(contentLength >= 0)
+                    break;
+                continue;
+            }
+            int colon = header.indexOf(':');
+            if(colon != -1 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                try {
+                    contentLength = Integer.parseInt(header.substring(colon + 1).trim());
+                } catch(NumberFormatException e) {
+                    contentLength = -1;
+                }
+            }
+        }
+        if(header == null)
+            return null;
+        byte[] content = in.readNBytes(contentLength);
+        if(content.length < contentLength)
+            return null;
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    //one header line without its line break, null at the end of the input
+    private String readHeader() throws IOException {
+        StringBuilder header = new StringBuilder();
+        int b;
+        while((b = in.read()) != '\n') {
+            if(b == -1)
+                return null;
+            if(b != '\r')
+                header.append((char) b);
+        }
+        return header.toString();
+    }
+
+    private void sendResult(Object id, Object result) {
+        send(Json.object("jsonrpc", "2.0", "id", id, "result", result));
+    }
+
+    private void sendError(Object id, int code, String message) {
+        send(Json.object("jsonrpc", "2.0", "id", id, "error", Json.object("code", code, "message", message)));
+    }
+
+    private void sendNotification(String method, Object params) {
+        send(Json.object("jsonrpc", "2.0", "method", method, "params", params));
+    }
+
+    //called from the reader and the checker thread
+    private synchronized void send(Map<String, Object> message) {
+        byte[] content = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+        } catch(IOException e) {
+            //the client is gone, serve returns at the end of its input
+        }
+    }
+}
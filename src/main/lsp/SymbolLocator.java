@@ -0,0 +1,366 @@
+package main.lsp;
+
+import main.CompilationContext;
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.types.NullType;
+import main.ast.types.Type;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListSegment;
+import main.ast.types.list.ListType;
+import main.ast.types.single.BoolType;
+import main.ast.types.single.ClassType;
+import main.ast.types.single.IntType;
+import main.ast.types.single.StringType;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.items.ClassSymbolTableItem;
+import main.symbolTable.items.FieldSymbolTableItem;
+import main.symbolTable.items.MethodSymbolTableItem;
+import main.symbolTable.items.SymbolTableItem;
+import main.visitor.utils.NodeLister;
+
+import java.util.*;
+
+//Finds what a word of an analyzed source names, for hover and go to definition.
+//Nodes only know their line, so the word is matched to the identifiers of its line by their order: the k-th
+//occurrence of the word on the line is the k-th identifier with its name there. Classes and members are
+//resolved through the symbol tables of the analysis, following parents like the type checker does; local
+//variables and arguments through the declarations of their method.
+class SymbolLocator {
+    //what a word names, declaration is null when it can not be told where it is declared
+    static class Symbol {
+        private final String description;
+        private final String className;
+        private final Identifier declaration;
+
+        private Symbol(String description, String className, Identifier declaration) {
+            this.description = description;
+            this.className = className;
+            this.declaration = declaration;
+        }
+
+        //how the symbol would be declared, in Sophia
+        String getDescription() {
+            return description;
+        }
+
+        //the class of a method or a field, null for the others
+        String getClassName() {
+            return className;
+        }
+
+        Identifier getDeclaration() {
+            return declaration;
+        }
+    }
+
+    private final Program program;
+    private final CompilationContext context;
+    private final TextDocument document;
+    //class symbol table -> its class
+    private Map<SymbolTable, ClassDeclaration> classes;
+
+    //document is the text the program was analyzed from
+    SymbolLocator(Program program, CompilationContext context, TextDocument document) {
+        this.program = program;
+        this.context = context;
+        this.document = document;
+    }
+
+    //null when there is no word at the position or it names nothing known
+    Symbol find(int line, int character) {
+        String text = document.getLine(line);
+        int start = Math.min(character, text.length());
+        while(start > 0 && isWordPart(text.charAt(start - 1)))
+            start--;
+        int end = start;
+        while(end < text.length() && isWordPart(text.charAt(end)))
+            end++;
+        if(start == end || !Character.isJavaIdentifierStart(text.charAt(start)))
+            return null;
+        String word = text.substring(start, end);
+        int occurrence = 0;
+        for(int i = text.indexOf(word); i != -1 && i < start; i = text.indexOf(word, i + 1)) {
+            if(isWordAt(text, i, word))
+                occurrence++;
+        }
+        return find(line + 1, word, occurrence);
+    }
+
+    //the character the name of the declaration starts at on its line, 0 when it is not found there
+    int findColumn(Identifier declaration) {
+        String text = document.getLine(declaration.getLine() - 1);
+        String name = declaration.getName();
+        for(int i = text.indexOf(name); i != -1; i = text.indexOf(name, i + 1)) {
+            if(isWordAt(text, i, name))
+                return i;
+        }
+        return 0;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static boolean isWordAt(String text, int index, String word) {
+        int end = index + word.length();
+        return (index == 0 || !isWordPart(text.charAt(index - 1))) && (end == text.length() || !isWordPart(text.charAt(end)));
+    }
+
+    private Symbol find(int line, String word, int occurrence) {
+        ClassDeclaration classDeclaration = findClassAt(line);
+        if(classDeclaration == null)
+            return findClass(word);
+        //identifier -> the node it is part of, and the method it is in
+        List<Identifier> candidates = new ArrayList<>();
+        Map<Identifier, Node> owners = new IdentityHashMap<>();
+        Map<Identifier, MethodDeclaration> methods = new IdentityHashMap<>();
+        MethodDeclaration method = null;
+        for(Node node : NodeLister.listNodes(classDeclaration)) {
+            if(node instanceof MethodDeclaration) {
+                method = (MethodDeclaration) node;
+                owners.put(method.getMethodName(), method);
+            } else if(node instanceof FieldDeclaration) {
+                method = null;
+            } else if(node instanceof ClassDeclaration) {
+                owners.put(classDeclaration.getClassName(), node);
+                if(classDeclaration.getParentClassName() != null)
+                    owners.put(classDeclaration.getParentClassName(), node);
+            } else if(node instanceof VarDeclaration) {
+                owners.put(((VarDeclaration) node).getVarName(), node);
+            } else if(node instanceof ObjectOrListMemberAccess) {
+                owners.put(((ObjectOrListMemberAccess) node).getMemberName(), node);
+            } else if(node instanceof Identifier && node.getLine() == line && ((Identifier) node).getName().equals(word)) {
+                candidates.add((Identifier) node);
+                methods.put((Identifier) node, method);
+            }
+        }
+        if(candidates.isEmpty())
+            return findClass(word);
+        Identifier identifier = candidates.get(Math.min(occurrence, candidates.size() - 1));
+        Node owner = owners.get(identifier);
+        method = methods.get(identifier);
+        if(owner instanceof ClassDeclaration)
+            return findClass(word);
+        if(owner instanceof MethodDeclaration)
+            return describeMethod(classDeclaration, (MethodDeclaration) owner);
+        if(owner instanceof VarDeclaration)
+            return method == null ? describeField(classDeclaration, (VarDeclaration) owner) : findLocal(method, word);
+        if(owner instanceof ObjectOrListMemberAccess) {
+            Type instanceType = typeOf(((ObjectOrListMemberAccess) owner).getInstance(), classDeclaration, method);
+            if(instanceType instanceof ClassType)
+                return findMember(((ClassType) instanceType).getClassName().getName(), word);
+            if(instanceType instanceof ListType) {
+                ListNameType element = ((ListType) instanceType).findElement(word);
+                //list types are interned, the name may be declared in another list type with the same elements
+                if(element != null)
+                    return new Symbol(word + ": " + typeName(element.getType()), null, null);
+            }
+            return null;
+        }
+        Symbol local = method == null ? null : findLocal(method, word);
+        return local != null ? local : findClass(word);
+    }
+
+    //the last class starting at or before the line
+    private ClassDeclaration findClassAt(int line) {
+        ClassDeclaration found = null;
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            if(classDeclaration.getLine() <= line && (found == null || classDeclaration.getLine() >= found.getLine()))
+                found = classDeclaration;
+        }
+        return found;
+    }
+
+    private ClassSymbolTableItem findClassItem(String className) {
+        return (ClassSymbolTableItem) context.getRoot().findItem(ClassSymbolTableItem.START_KEY + className, true);
+    }
+
+    private Symbol findClass(String className) {
+        ClassSymbolTableItem classSymbolTableItem = findClassItem(className);
+        if(classSymbolTableItem == null)
+            return null;
+        ClassDeclaration classDeclaration = classSymbolTableItem.getClassDeclaration();
+        String description = "class " + className;
+        if(classDeclaration.getParentClassName() != null)
+            description += " extends " + classDeclaration.getParentClassName().getName();
+        return new Symbol(description, null, classDeclaration.getClassName());
+    }
+
+    //same order as MemberLookupCache: methods of the whole chain of parents first, then fields
+    private Symbol findMember(String className, String memberName) {
+        ClassSymbolTableItem classSymbolTableItem = findClassItem(className);
+        if(classSymbolTableItem == null)
+            return null;
+        List<SymbolTable> chain = new ArrayList<>();
+        Set<SymbolTable> visitedSymbolTables = new HashSet<>();
+        for(SymbolTable symbolTable = classSymbolTableItem.getClassSymbolTable();
+            symbolTable != null && visitedSymbolTables.add(symbolTable); symbolTable = symbolTable.pre)
+            chain.add(symbolTable);
+        for(SymbolTable symbolTable : chain) {
+            SymbolTableItem item = symbolTable.items.get(MethodSymbolTableItem.START_KEY + memberName);
+            ClassDeclaration declaringClass = getClasses().get(symbolTable);
+            if(item != null && declaringClass != null)
+                return describeMethod(declaringClass, ((MethodSymbolTableItem) item).getMethodDeclaration());
+        }
+        for(SymbolTable symbolTable : chain) {
+            SymbolTableItem item = symbolTable.items.get(FieldSymbolTableItem.START_KEY + memberName);
+            ClassDeclaration declaringClass = getClasses().get(symbolTable);
+            if(item == null || declaringClass == null)
+                continue;
+            for(FieldDeclaration fieldDeclaration : declaringClass.getFields()) {
+                if(fieldDeclaration.getVarDeclaration().getVarName().getName().equals(memberName))
+                    return describeField(declaringClass, fieldDeclaration.getVarDeclaration());
+            }
+        }
+        return null;
+    }
+
+    private Map<SymbolTable, ClassDeclaration> getClasses() {
+        if(classes == null) {
+            classes = new IdentityHashMap<>();
+            for(SymbolTableItem item : context.getRoot().items.values()) {
+                if(item instanceof ClassSymbolTableItem) {
+                    ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem) item;
+                    classes.put(classSymbolTableItem.getClassSymbolTable(), classSymbolTableItem.getClassDeclaration());
+                }
+            }
+        }
+        return classes;
+    }
+
+    private Symbol findLocal(MethodDeclaration method, String name) {
+        for(VarDeclaration varDeclaration : method.getArgs()) {
+            if(varDeclaration.getVarName().getName().equals(name))
+                return describeVar(varDeclaration);
+        }
+        for(VarDeclaration varDeclaration : method.getLocalVars()) {
+            if(varDeclaration.getVarName().getName().equals(name))
+                return describeVar(varDeclaration);
+        }
+        return null;
+    }
+
+    //the type of the few expressions a member can be accessed on, null for the others
+    private Type typeOf(Expression expression, ClassDeclaration classDeclaration, MethodDeclaration method) {
+        if(expression instanceof ThisClass)
+            return context.getTypeFactory().classType(classDeclaration.getClassName().getName());
+        if(expression instanceof NewClassInstance)
+            return ((NewClassInstance) expression).getClassType();
+        if(expression instanceof Identifier) {
+            if(method == null)
+                return null;
+            for(VarDeclaration varDeclaration : method.getArgs()) {
+                if(varDeclaration.getVarName().getName().equals(((Identifier) expression).getName()))
+                    return varDeclaration.getType();
+            }
+            for(VarDeclaration varDeclaration : method.getLocalVars()) {
+                if(varDeclaration.getVarName().getName().equals(((Identifier) expression).getName()))
+                    return varDeclaration.getType();
+            }
+            return null;
+        }
+        if(expression instanceof ObjectOrListMemberAccess) {
+            ObjectOrListMemberAccess access = (ObjectOrListMemberAccess) expression;
+            Type instanceType = typeOf(access.getInstance(), classDeclaration, method);
+            String memberName = access.getMemberName().getName();
+            if(instanceType instanceof ListType) {
+                ListNameType element = ((ListType) instanceType).findElement(memberName);
+                return element == null ? null : element.getType();
+            }
+            if(!(instanceType instanceof ClassType))
+                return null;
+            String className = ((ClassType) instanceType).getClassName().getName();
+            if(findClassItem(className) == null)
+                return null;
+            return context.getMemberLookupCache().lookup(className, memberName).getType();
+        }
+        if(expression instanceof MethodCall) {
+            Type instanceType = typeOf(((MethodCall) expression).getInstance(), classDeclaration, method);
+            return instanceType instanceof FptrType ? ((FptrType) instanceType).getReturnType() : null;
+        }
+        if(expression instanceof ListAccessByIndex) {
+            ListAccessByIndex access = (ListAccessByIndex) expression;
+            Type instanceType = typeOf(access.getInstance(), classDeclaration, method);
+            if(!(instanceType instanceof ListType) || ((ListType) instanceType).isEmpty())
+                return null;
+            ListType listType = (ListType) instanceType;
+            int index = access.getIndex() instanceof IntValue ? ((IntValue) access.getIndex()).getConstant() : 0;
+            return index >= 0 && index < listType.size() ? listType.getElementType(index).getType() : null;
+        }
+        return null;
+    }
+
+    private Symbol describeMethod(ClassDeclaration classDeclaration, MethodDeclaration method) {
+        StringBuilder description = new StringBuilder("def ");
+        if(!(method instanceof ConstructorDeclaration))
+            description.append(typeName(method.getReturnType())).append(' ');
+        description.append(method.getMethodName().getName()).append('(');
+        for(int i = 0; i < method.getArgs().size(); i++) {
+            VarDeclaration arg = method.getArgs().get(i);
+            if(i > 0)
+                description.append(", ");
+            description.append(arg.getVarName().getName()).append(": ").append(typeName(arg.getType()));
+        }
+        description.append(')');
+        return new Symbol(description.toString(), classDeclaration.getClassName().getName(), method.getMethodName());
+    }
+
+    private Symbol describeField(ClassDeclaration classDeclaration, VarDeclaration field) {
+        return new Symbol(declarationOf(field), classDeclaration.getClassName().getName(), field.getVarName());
+    }
+
+    private Symbol describeVar(VarDeclaration varDeclaration) {
+        return new Symbol(declarationOf(varDeclaration), null, varDeclaration.getVarName());
+    }
+
+    private static String declarationOf(VarDeclaration varDeclaration) {
+        return varDeclaration.getVarName().getName() + ": " + typeName(varDeclaration.getType());
+    }
+
+    //a type the way it is written in Sophia
+    static String typeName(Type type) {
+        if(type instanceof IntType)
+            return "int";
+        if(type instanceof BoolType)
+            return "bool";
+        if(type instanceof StringType)
+            return "string";
+        if(type instanceof NullType || type == null)
+            return "void";
+        if(type instanceof ClassType)
+            return ((ClassType) type).getClassName().getName();
+        if(type instanceof ListType) {
+            StringJoiner elements = new StringJoiner(", ", "list(", ")");
+            List<ListSegment> segments = ((ListType) type).getSegments();
+            if(segments.size() == 1 && segments.get(0).getCount() > 1
+                    && segments.get(0).getElementType().getName().getName().isEmpty())
+                return "list(" + segments.get(0).getCount() + " # " + typeName(segments.get(0).getElementType().getType()) + ")";
+            for(ListSegment segment : segments) {
+                ListNameType element = segment.getElementType();
+                String name = element.getName().getName();
+                String elementName = name.isEmpty() ? typeName(element.getType()) : name + ": " + typeName(element.getType());
+                for(int i = 0; i < segment.getCount(); i++)
+                    elements.add(elementName);
+            }
+            return elements.toString();
+        }
+        if(type instanceof FptrType) {
+            FptrType fptrType = (FptrType) type;
+            StringJoiner arguments = new StringJoiner(", ");
+            for(Type argumentType : fptrType.getArgumentsTypes())
+                arguments.add(typeName(argumentType));
+            String argumentNames = fptrType.getArgumentsTypes().isEmpty() ? "void" : arguments.toString();
+            return "func<" + argumentNames + " -> " + typeName(fptrType.getReturnType()) + ">";
+        }
+        return type.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package main.lsp;
+
+import java.util.Arrays;
+
+//An open document as the client last described it. Positions are the protocol's: lines from 0 and characters
+//counted in UTF-16 code units, which are Java chars.
+//Not thread safe: the server changes it under its lock and checks copies.
+class TextDocument {
+    private final String uri;
+    private int version;
+    private String text;
+    //the offset every line starts at, null until a position is first converted after a change
+    private int[] lineStarts;
+
+    TextDocument(String uri, int version, String text) {
+        this.uri = uri;
+        this.version = version;
+        this.text = text;
+    }
+
+    TextDocument copy() {
+        return new TextDocument(uri, version, text);
+    }
+
+    String getUri() {
+        return uri;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    //replaces the text between two positions; a change without a range replaces the whole text
+    void applyChange(int startLine, int startCharacter, int endLine, int endCharacter, String newText) {
+        int start = offsetOf(startLine, startCharacter);
+        int end = Math.max(start, offsetOf(endLine, endCharacter));
+        text = text.substring(0, start) + newText + text.substring(end);
+        lineStarts = null;
+    }
+
+    void replace(String newText) {
+        text = newText;
+        lineStarts = null;
+    }
+
+    //positions past the end of a line or of the text are clamped to it
+    int offsetOf(int line, int character) {
+        int[] starts = getLineStarts();
+        if(line < 0)
+            return 0;
+        if(line >= starts.length)
+            return text.length();
+        int lineEnd = line + 1 < starts.length ? starts[line + 1] - 1 : text.length();
+        return Math.min(starts[line] + Math.max(character, 0), lineEnd);
+    }
+
+    int getNumberOfLines() {
+        return getLineStarts().length;
+    }
+
+    //without its line break
+    String getLine(int line) {
+        int[] starts = getLineStarts();
+        if(line < 0 || line >= starts.length)
+            return "";
+        int end = line + 1 < starts.length ? starts[line + 1] - 1 : text.length();
+        if(end > starts[line] && text.charAt(end - 1) == '\r')
+            end--;
+        return text.substring(starts[line], end);
+    }
+
+    private int[] getLineStarts() {
+        if(lineStarts == null) {
+            int[] starts = new int[16];
+            int count = 1;
+            for(int i = 0; i < text.length(); i++) {
+                if(text.charAt(i) == '\n') {
+                    if(count == starts.length)
+                        starts = Arrays.copyOf(starts, count * 2);
+                    starts[count++] = i + 1;
+                }
+            }
+            lineStarts = Arrays.copyOf(starts, count);
+        }
+        return lineStarts;
+    }
+}
@@ -0,0 +1,150 @@
+package main.symbolTable;
+
+import main.ast.types.NullType;
+import main.ast.types.Type;
+import main.ast.types.TypeFactory;
+import main.symbolTable.items.ClassSymbolTableItem;
+import main.symbolTable.items.FieldSymbolTableItem;
+import main.symbolTable.items.MethodSymbolTableItem;
+import main.symbolTable.items.SymbolTableItem;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Remembers what a member name resolves to in a class, inherited members and absent ones included,
+//so every (class, member) pair is looked up in the symbol tables only once per compilation.
+//Entries depend on the set of classes and their parents: call clear() whenever that changes.
+//Lookups may run on several threads at once, a pair resolved by two of them at the same time is stored once.
+public class MemberLookupCache {
+    public enum Kind { METHOD, FIELD, CONSTRUCTOR, ABSENT }
+
+    public static class Member {
+        private final Kind kind;
+        private final Type type;
+        private final String[] probedClasses;
+
+        private Member(Kind kind, Type type, String[] probedClasses) {
+            this.kind = kind;
+            this.type = type;
+            this.probedClasses = probedClasses;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        //the function pointer type for methods and constructors, the declared type for fields
+        public Type getType() {
+            return type;
+        }
+
+        //the classes whose declarations of the name the answer depends on, from the class itself up to the
+        //one that declares the member
+        public String[] getProbedClasses() {
+            return probedClasses;
+        }
+    }
+
+    private static class ClassMembers {
+        private final SymbolTable classSymbolTable;
+        private final Map<String, Member> members = new ConcurrentHashMap<>();
+
+        private ClassMembers(SymbolTable classSymbolTable) {
+            this.classSymbolTable = classSymbolTable;
+        }
+    }
+
+    private final TypeFactory typeFactory;
+    private SymbolTable root;
+    private final Map<String, ClassMembers> classes = new ConcurrentHashMap<>();
+    //class symbol table -> class name, built on the first lookup of the compilation
+    private volatile Map<SymbolTable, String> classNames;
+
+    public MemberLookupCache(TypeFactory typeFactory) {
+        this.typeFactory = typeFactory;
+    }
+
+    public void setRoot(SymbolTable root) {
+        this.root = root;
+        clear();
+    }
+
+    public void clear() {
+        classes.clear();
+        classNames = null;
+    }
+
+    //returns null when the class itself is not declared
+    public Member lookup(String className, String memberName) {
+        ClassMembers classMembers = classes.get(className);
+        if (classMembers == null) {
+            ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem) root
+                    .findItem(ClassSymbolTableItem.START_KEY + className, true);
+            if (classSymbolTableItem == null)
+                return null;
+            classMembers = classes.computeIfAbsent(className,
+                    key -> new ClassMembers(classSymbolTableItem.getClassSymbolTable()));
+        }
+        Member member = classMembers.members.get(memberName);
+        if (member == null) {
+            member = resolve(classMembers.classSymbolTable, className, memberName);
+            Member resolved = classMembers.members.putIfAbsent(memberName, member);
+            if (resolved != null)
+                member = resolved;
+        }
+        return member;
+    }
+
+    //same walk as SymbolTable.findItem, the chain of class symbol tables ends at the root
+    private Member resolve(SymbolTable classSymbolTable, String className, String memberName) {
+        List<SymbolTable> chain = new ArrayList<>();
+        Set<SymbolTable> visitedSymbolTables = new HashSet<>();
+        for (SymbolTable symbolTable = classSymbolTable; symbolTable != null && visitedSymbolTables.add(symbolTable);
+             symbolTable = symbolTable.pre)
+            chain.add(symbolTable);
+        for (int i = 0; i < chain.size(); i++) {
+            MethodSymbolTableItem methodSymbolTableItem = (MethodSymbolTableItem) chain.get(i).items
+                    .get(MethodSymbolTableItem.START_KEY + memberName);
+            if (methodSymbolTableItem != null)
+                return new Member(Kind.METHOD,
+                        typeFactory.fptrType(methodSymbolTableItem.getArgTypes(), methodSymbolTableItem.getReturnType()),
+                        probedClasses(chain, i + 1));
+        }
+        //every class was probed for a method before fields are looked at
+        String[] probedClasses = probedClasses(chain, chain.size());
+        for (SymbolTable symbolTable : chain) {
+            FieldSymbolTableItem fieldSymbolTableItem = (FieldSymbolTableItem) symbolTable.items
+                    .get(FieldSymbolTableItem.START_KEY + memberName);
+            if (fieldSymbolTableItem != null)
+                return new Member(Kind.FIELD, fieldSymbolTableItem.getType(), probedClasses);
+        }
+        if (className.equals(memberName))
+            return new Member(Kind.CONSTRUCTOR, typeFactory.fptrType(new ArrayList<>(), NullType.INSTANCE), probedClasses);
+        return new Member(Kind.ABSENT, null, probedClasses);
+    }
+
+    private String[] probedClasses(List<SymbolTable> chain, int length) {
+        Map<SymbolTable, String> names = classNames;
+        if (names == null) {
+            names = new IdentityHashMap<>();
+            for (SymbolTableItem item : root.items.values()) {
+                if (item instanceof ClassSymbolTableItem)
+                    names.put(((ClassSymbolTableItem) item).getClassSymbolTable(),
+                            item.getKey().substring(ClassSymbolTableItem.START_KEY.length()));
+            }
+            classNames = names;
+        }
+        List<String> probed = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            String name = names.get(chain.get(i));
+            if (name != null)
+                probed.add(name);
+        }
+        return probed.toArray(new String[0]);
+    }
+}
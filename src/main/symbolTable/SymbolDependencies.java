@@ -0,0 +1,231 @@
+package main.symbolTable;
+
+import main.symbolTable.utils.graph.Graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+//What type checking read about the program, per unit of code: a unit is a method or constructor, named
+//"Class.method", or the rest of a class, its header and fields, named after the class.
+//A symbol is one fact a checker can ask about:
+//  "class C"      whether C is declared,
+//  "member C.x"   what C itself declares under the name x, whether found there or not,
+//  "parent C"     the parent of C.
+//Symbols get dense ids in the order they are first read, a unit keeps the ids it read as a sorted array.
+//Several checkers can record at the same time, each through its own Recorder.
+public class SymbolDependencies {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    //guarded by this
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, int[]> readSets = new ConcurrentHashMap<>();
+
+    public static String classSymbol(String className) {
+        return "class " + className;
+    }
+
+    public static String memberSymbol(String className, String memberName) {
+        return "member " + className + "." + memberName;
+    }
+
+    public static String parentSymbol(String className) {
+        return "parent " + className;
+    }
+
+    public static String methodUnit(String className, String methodName) {
+        return className + "." + methodName;
+    }
+
+    private int intern(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null)
+            return id;
+        synchronized (this) {
+            id = ids.get(symbol);
+            if (id == null) {
+                id = symbols.size();
+                symbols.add(symbol);
+                ids.put(symbol, id);
+            }
+            return id;
+        }
+    }
+
+    //-1 when no unit read the symbol
+    public int findSymbol(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    public synchronized String getSymbol(int id) {
+        return symbols.get(id);
+    }
+
+    public synchronized int getNumberOfSymbols() {
+        return symbols.size();
+    }
+
+    public Set<String> getUnits() {
+        return new TreeSet<>(readSets.keySet());
+    }
+
+    //the ids of the symbols the unit read in increasing order, null when the unit was not checked
+    public int[] getReadSet(String unit) {
+        int[] readSet = readSets.get(unit);
+        return readSet == null ? null : readSet.clone();
+    }
+
+    public List<String> getReads(String unit) {
+        int[] readSet = readSets.get(unit);
+        if (readSet == null)
+            return Collections.emptyList();
+        List<String> reads = new ArrayList<>(readSet.length);
+        for (int id : readSet)
+            reads.add(getSymbol(id));
+        return reads;
+    }
+
+    //the units that read the symbol, in name order
+    public List<String> findReaders(String symbol) {
+        int id = findSymbol(symbol);
+        if (id == -1)
+            return Collections.emptyList();
+        List<String> readers = new ArrayList<>();
+        for (Map.Entry<String, int[]> readSet : readSets.entrySet()) {
+            if (Arrays.binarySearch(readSet.getValue(), id) >= 0)
+                readers.add(readSet.getKey());
+        }
+        Collections.sort(readers);
+        return readers;
+    }
+
+    //every unit in name order, followed by the symbols it read, one per line
+    public void print(PrintStream out) {
+        for (String unit : getUnits()) {
+            out.println(unit);
+            for (String symbol : getReads(unit))
+                out.println("    " + symbol);
+        }
+    }
+
+    //the symbols, then every unit with the gaps between its ids
+    public void write(DataOutput out) throws IOException {
+        List<String> symbolsCopy;
+        synchronized (this) {
+            symbolsCopy = new ArrayList<>(symbols);
+        }
+        writeNumber(out, symbolsCopy.size());
+        for (String symbol : symbolsCopy)
+            out.writeUTF(symbol);
+        Map<String, int[]> units = new TreeMap<>(readSets);
+        writeNumber(out, units.size());
+        for (Map.Entry<String, int[]> unit : units.entrySet()) {
+            out.writeUTF(unit.getKey());
+            int[] readSet = unit.getValue();
+            writeNumber(out, readSet.length);
+            int previous = -1;
+            for (int id : readSet) {
+                writeNumber(out, id - previous - 1);
+                previous = id;
+            }
+        }
+    }
+
+    public static SymbolDependencies read(DataInput in) throws IOException {
+        SymbolDependencies dependencies = new SymbolDependencies();
+        int numberOfSymbols = readNumber(in);
+        for (int i = 0; i < numberOfSymbols; i++)
+            dependencies.intern(in.readUTF());
+        int numberOfUnits = readNumber(in);
+        for (int i = 0; i < numberOfUnits; i++) {
+            String unit = in.readUTF();
+            int[] readSet = new int[readNumber(in)];
+            int previous = -1;
+            for (int j = 0; j < readSet.length; j++) {
+                previous += readNumber(in) + 1;
+                if (previous >= numberOfSymbols)
+                    throw new IOException("symbol id out of range in unit " + unit);
+                readSet[j] = previous;
+            }
+            dependencies.readSets.put(unit, readSet);
+        }
+        return dependencies;
+    }
+
+    //seven bits per byte, the high bit says another byte follows
+    private static void writeNumber(DataOutput out, int number) throws IOException {
+        while ((number & ~0x7F) != 0) {
+            out.writeByte((number & 0x7F) | 0x80);
+            number >>>= 7;
+        }
+        out.writeByte(number);
+    }
+
+    private static int readNumber(DataInput in) throws IOException {
+        int number = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            number |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return number;
+        }
+        throw new IOException("malformed number");
+    }
+
+    public Recorder newRecorder() {
+        return new Recorder();
+    }
+
+    //Collects the reads of one checker. Units can be nested, a read belongs to the innermost open unit;
+    //reads outside of every unit are not kept.
+    public class Recorder {
+        private final ArrayDeque<String> openUnits = new ArrayDeque<>();
+        private final ArrayDeque<BitSet> openReadSets = new ArrayDeque<>();
+
+        public void enterUnit(String unit) {
+            openUnits.push(unit);
+            openReadSets.push(new BitSet());
+        }
+
+        public void exitUnit() {
+            readSets.put(openUnits.pop(), openReadSets.pop().stream().toArray());
+        }
+
+        private void read(String symbol) {
+            if (!openReadSets.isEmpty())
+                openReadSets.peek().set(intern(symbol));
+        }
+
+        public void readClass(String className) {
+            read(classSymbol(className));
+        }
+
+        //member is what MemberLookupCache.lookup returned, null when the class is not declared
+        public void readMember(String className, String memberName, MemberLookupCache.Member member) {
+            readClass(className);
+            if (member == null)
+                return;
+            for (String probedClass : member.getProbedClasses())
+                read(memberSymbol(probedClass, memberName));
+        }
+
+        //the parents followed to decide whether ancestorName is an ancestor of className
+        public void readAncestors(Graph<String> classHierarchy, String className, String ancestorName) {
+            Set<String> visited = new HashSet<>();
+            ArrayDeque<String> queue = new ArrayDeque<>();
+            queue.add(className);
+            while (!queue.isEmpty()) {
+                String name = queue.poll();
+                if (name.equals(ancestorName) || !visited.add(name))
+                    continue;
+                read(parentSymbol(name));
+                Collection<String> parents = classHierarchy.findParentsOfNode(name);
+                if (parents != null)
+                    queue.addAll(parents);
+            }
+        }
+    }
+}
@@ -4,38 +4,17 @@ package main.symbolTable;
 import main.symbolTable.exceptions.ItemAlreadyExistsException;
 import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.SymbolTableItem;
-import main.symbolTable.utils.stack.Stack;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 
 
 public class SymbolTable {
 
-    //Start of static members
-
-    public static SymbolTable top;
-    public static SymbolTable root;
-    private static Stack<SymbolTable> stack = new Stack<>();
-
-    public static void push(SymbolTable symbolTable) {
-        if (top != null)
-            stack.push(top);
-        top = symbolTable;
-    }
-
-    public static void pop() {
-        top = stack.pop();
-    }
-
-    //End of static members
-
     public SymbolTable pre;
     public Map<String, SymbolTableItem> items;
 //    private Map<String, SymbolTableItem> items;
+    private final List<SymbolTableItem> slots = new ArrayList<>();
 
     public SymbolTable() {
         this(null);
@@ -47,12 +26,51 @@ public class SymbolTable {
     }
 
     public void put(SymbolTableItem item) throws ItemAlreadyExistsException {
-        if (items.containsKey(item.getKey()))
+        if (!tryPut(item))
             throw new ItemAlreadyExistsException();
+    }
+
+    //returns false and leaves the table unchanged when an item with the same key is already there
+    public boolean tryPut(SymbolTableItem item) {
+        if (items.containsKey(item.getKey()))
+            return false;
         items.put(item.getKey(), item);
+        item.setSlot(slots.size());
+        slots.add(item);
+        return true;
+    }
+
+    //same walk as getItem, but returns how many pre links were followed to find the key, or -1
+    public int getDepthOf(String key) {
+        Set<SymbolTable> visitedSymbolTables = new HashSet<>();
+        SymbolTable currentSymbolTable = this;
+        int depth = 0;
+        while((currentSymbolTable != null) && (!visitedSymbolTables.contains(currentSymbolTable))) {
+            visitedSymbolTables.add( currentSymbolTable );
+            if( currentSymbolTable.items.containsKey(key) )
+                return depth;
+            currentSymbolTable = currentSymbolTable.pre;
+            depth++;
+        }
+        return -1;
+    }
+
+    public SymbolTableItem getItemAt(int depth, int slot) {
+        SymbolTable currentSymbolTable = this;
+        for(int i = 0; i < depth; i++)
+            currentSymbolTable = currentSymbolTable.pre;
+        return currentSymbolTable.slots.get(slot);
     }
 
     public SymbolTableItem getItem(String key, Boolean searchCurrent) throws ItemNotFoundException {
+        SymbolTableItem symbolTableItem = findItem(key, searchCurrent);
+        if (symbolTableItem == null)
+            throw new ItemNotFoundException();
+        return symbolTableItem;
+    }
+
+    //same as getItem, but a miss returns null
+    public SymbolTableItem findItem(String key, boolean searchCurrent) {
         Set<SymbolTable> visitedSymbolTables = new HashSet<>();
         SymbolTable currentSymbolTable = this;
         if(!searchCurrent) {
@@ -66,7 +84,7 @@ public class SymbolTable {
                 return symbolTableItem;
             currentSymbolTable = currentSymbolTable.pre;
         }
-        throw new ItemNotFoundException();
+        return null;
     }
 
 }
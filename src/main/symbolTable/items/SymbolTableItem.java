@@ -3,6 +3,8 @@ package main.symbolTable.items;
 public abstract class SymbolTableItem {
 
     protected String name;
+    //position of the item in the symbol table that holds it
+    protected int slot;
 
     public abstract String getKey();
 
@@ -13,4 +15,12 @@ public abstract class SymbolTableItem {
     public void setName(String name) {
         this.name = name;
     }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
 }
@@ -7,11 +7,38 @@ import java.util.*;
 
 public class Graph<N> {
     private Map<N, Set<N>> parentShipRelation = new HashMap<>();
+    private HierarchyIndex<N> index;
+    private boolean frozen = false;
+
+    //After freezing, the graph can not change anymore and ancestor queries are answered in constant time.
+    public void freeze() {
+        if (frozen)
+            return;
+        frozen = true;
+        index = HierarchyIndex.build(parentShipRelation);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen)
+            throw new IllegalStateException("graph is frozen");
+    }
 
     public void addNode(N desired) throws NodeAlreadyExistsException {
-        if (parentShipRelation.containsKey(desired))
+        if (!tryAddNode(desired))
             throw new NodeAlreadyExistsException();
+    }
+
+    //returns false when the node is already in the graph
+    public boolean tryAddNode(N desired) {
+        checkNotFrozen();
+        if (parentShipRelation.containsKey(desired))
+            return false;
         parentShipRelation.put(desired, new HashSet<>());
+        return true;
     }
 
     public boolean doesGraphContainNode(N desired) {
@@ -19,40 +46,68 @@ public class Graph<N> {
     }
 
     public void addNodeAsParentOf(N desired, N parentNode) throws GraphDoesNotContainNodeException {
-        if (!parentShipRelation.containsKey(desired))
+        if (!tryAddNodeAsParentOf(desired, parentNode))
             throw new GraphDoesNotContainNodeException();
-        parentShipRelation.get(desired).add(parentNode);
+    }
+
+    //returns false when desired is not in the graph
+    public boolean tryAddNodeAsParentOf(N desired, N parentNode) {
+        checkNotFrozen();
+        Set<N> parents = parentShipRelation.get(desired);
+        if (parents == null)
+            return false;
+        parents.add(parentNode);
+        return true;
     }
 
     public Collection<N> getParentsOfNode(N desired) throws GraphDoesNotContainNodeException {
-        if (!parentShipRelation.containsKey(desired))
+        Collection<N> parents = findParentsOfNode(desired);
+        if (parents == null)
             throw new GraphDoesNotContainNodeException();
+        return parents;
+    }
+
+    //returns null when desired is not in the graph
+    public Collection<N> findParentsOfNode(N desired) {
         return parentShipRelation.get(desired);
     }
 
     public boolean isSecondNodeAncestorOf(N first , N second) {
+        if (index != null)
+            return index.isSecondNodeAncestorOf(first, second);
         Set<N> visitedNodes = new HashSet<>();
         return _isSecondNodeAncestorOf(first,second, visitedNodes);
     }
 
     private boolean _isSecondNodeAncestorOf(N first, N second, Set<N> visitedNodes) {
-        try {
-            if(first.equals(second))
+        if(first.equals(second))
+            return true;
+        Collection<N> parents = findParentsOfNode(first);
+        if(parents == null)
+            return false;
+        for(N node : parents) {
+            if (node.equals(second)) {
                 return true;
-            Collection<N> parents = getParentsOfNode(first);
-            for(N node : parents) {
-                if (node.equals(second)) {
-                    return true;
-                }
-                if (visitedNodes.contains(node))
-                    continue;
-                visitedNodes.add(node);
-                if (_isSecondNodeAncestorOf(node, second, visitedNodes))
-                    return true;
             }
-        } catch(GraphDoesNotContainNodeException ignored) {
+            if (visitedNodes.contains(node))
+                continue;
+            visitedNodes.add(node);
+            if (_isSecondNodeAncestorOf(node, second, visitedNodes))
+                return true;
         }
         return false;
     }
 
+    //every node that has desired as an ancestor, desired included
+    public Collection<N> getDescendantsOfNode(N desired) {
+        if (index != null)
+            return index.getDescendantsOfNode(desired);
+        List<N> descendants = new ArrayList<>();
+        for (N node : parentShipRelation.keySet()) {
+            if (isSecondNodeAncestorOf(node, desired))
+                descendants.add(node);
+        }
+        return descendants;
+    }
+
 }
@@ -0,0 +1,144 @@
+package main.symbolTable.utils.graph;
+
+import java.util.*;
+
+//Immutable snapshot of a graph in which every node has at most one parent (single inheritance).
+//Nodes get dense ids. Nodes on an inheritance cycle are merged into one component, which turns the
+//graph into a forest of components; an Euler tour over that forest numbers every component with an
+//interval [enter, exit) that contains the intervals of all its descendants.
+//Ancestor checks are then two integer comparisons and descendants are a contiguous slice.
+class HierarchyIndex<N> {
+    private final Map<N, Integer> ids = new HashMap<>();
+    private final int[] componentOf;
+    private final int[] enter;
+    private final int[] exit;
+    private final List<N> nodesInTourOrder;
+
+    private HierarchyIndex(Map<N, Set<N>> parentShipRelation) {
+        List<N> nodes = new ArrayList<>();
+        for (Map.Entry<N, Set<N>> entry : parentShipRelation.entrySet()) {
+            idOf(entry.getKey(), nodes);
+            for (N parent : entry.getValue())
+                idOf(parent, nodes);
+        }
+        int size = nodes.size();
+        int[] parentOf = new int[size];
+        Arrays.fill(parentOf, -1);
+        for (Map.Entry<N, Set<N>> entry : parentShipRelation.entrySet()) {
+            for (N parent : entry.getValue())
+                parentOf[ids.get(entry.getKey())] = ids.get(parent);
+        }
+
+        componentOf = findComponents(parentOf);
+        enter = new int[size];
+        exit = new int[size];
+        nodesInTourOrder = new ArrayList<>(size);
+        tour(nodes, parentOf);
+    }
+
+    //returns null when some node has more than one parent
+    static <N> HierarchyIndex<N> build(Map<N, Set<N>> parentShipRelation) {
+        for (Set<N> parents : parentShipRelation.values()) {
+            if (parents.size() > 1)
+                return null;
+        }
+        return new HierarchyIndex<>(parentShipRelation);
+    }
+
+    private void idOf(N node, List<N> nodes) {
+        if (!ids.containsKey(node)) {
+            ids.put(node, nodes.size());
+            nodes.add(node);
+        }
+    }
+
+    //a node on a cycle belongs to the component of the first cycle node found, others to themselves
+    private static int[] findComponents(int[] parentOf) {
+        int size = parentOf.length;
+        int[] componentOf = new int[size];
+        int[] visitedBy = new int[size];
+        Arrays.fill(visitedBy, -1);
+        for (int i = 0; i < size; i++)
+            componentOf[i] = i;
+        for (int start = 0; start < size; start++) {
+            int node = start;
+            while (node != -1 && visitedBy[node] == -1) {
+                visitedBy[node] = start;
+                node = parentOf[node];
+            }
+            if (node != -1 && visitedBy[node] == start) {
+                int cycleNode = node;
+                do {
+                    componentOf[cycleNode] = node;
+                    cycleNode = parentOf[cycleNode];
+                } while (cycleNode != node);
+            }
+        }
+        return componentOf;
+    }
+
+    private void tour(List<N> nodes, int[] parentOf) {
+        int size = nodes.size();
+        List<List<Integer>> members = new ArrayList<>(size);
+        List<List<Integer>> children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            members.add(new ArrayList<>(1));
+            children.add(new ArrayList<>());
+        }
+        List<Integer> roots = new ArrayList<>();
+        for (int node = 0; node < size; node++) {
+            int component = componentOf[node];
+            members.get(component).add(node);
+            if (component != node)
+                continue;
+            int parent = parentOf[node];
+            if (parent == -1 || componentOf[parent] == node)
+                roots.add(node);
+            else
+                children.get(componentOf[parent]).add(node);
+        }
+
+        Deque<Integer> stack = new ArrayDeque<>();
+        for (int root : roots) {
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                int component = stack.pop();
+                if (component < 0) {
+                    exit[~component] = nodesInTourOrder.size();
+                    continue;
+                }
+                enter[component] = nodesInTourOrder.size();
+                for (int member : members.get(component))
+                    nodesInTourOrder.add(nodes.get(member));
+                stack.push(~component);
+                for (int child : children.get(component))
+                    stack.push(child);
+            }
+        }
+    }
+
+    boolean contains(N node) {
+        return ids.containsKey(node);
+    }
+
+    boolean isSecondNodeAncestorOf(N first, N second) {
+        if (first.equals(second))
+            return true;
+        Integer firstId = ids.get(first);
+        Integer secondId = ids.get(second);
+        if (firstId == null || secondId == null)
+            return false;
+        int firstComponent = componentOf[firstId];
+        int secondComponent = componentOf[secondId];
+        return enter[secondComponent] <= enter[firstComponent] && enter[firstComponent] < exit[secondComponent];
+    }
+
+    //the node itself, the other nodes of its cycle and everything below them
+    List<N> getDescendantsOfNode(N node) {
+        Integer id = ids.get(node);
+        if (id == null)
+            return Collections.emptyList();
+        int component = componentOf[id];
+        return Collections.unmodifiableList(nodesInTourOrder.subList(enter[component], exit[component]));
+    }
+}
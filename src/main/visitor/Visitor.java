@@ -17,29 +17,9 @@ import main.ast.nodes.statement.loop.BreakStmt;
 import main.ast.nodes.statement.loop.ContinueStmt;
 import main.ast.nodes.statement.loop.ForStmt;
 import main.ast.nodes.statement.loop.ForeachStmt;
-import main.ast.types.Type;
-import main.ast.types.single.ClassType;
-import main.symbolTable.SymbolTable;
-import main.symbolTable.items.ClassSymbolTableItem;
-import main.symbolTable.items.SymbolTableItem;
 
 public class Visitor<T> implements IVisitor<T> {
 
-    public static SymbolTable currentSymbolTable;
-//    public static ClassSymbolTableItem currentSymbolTable;
-
-    public static ClassDeclaration currentClassDeclaration;
-
-    public static Type currentReturnType;
-
-//    public static boolean doesReturnStatementExist;
-
-    public static int nestedLoopsCount = 0;
-
-    public static boolean hasSeenNoneLValue = false;
-
-    public static boolean inMethodCallStatement = false;
-
     @Override
     public T visit(Program program) {
         return null;
@@ -0,0 +1,220 @@
+package main.visitor.nameAnalyzer;
+
+import main.CompilationContext;
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.items.ClassSymbolTableItem;
+import main.symbolTable.items.LocalVariableSymbolTableItem;
+import main.symbolTable.items.MethodSymbolTableItem;
+import main.visitor.Visitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//Resolves every variable use in the method bodies once, against the same symbol table the type checker
+//will have as its current one, and stores the result in the Identifier as (scope depth, slot).
+//Member names after a dot are not variables and are left unresolved.
+public class IdentifierResolver extends Visitor<Void> {
+    private static final int[] UNRESOLVED = {Identifier.UNRESOLVED, Identifier.UNRESOLVED};
+    private final CompilationContext context;
+    private SymbolTable currentSymbolTable;
+    //(depth, slot) per variable name of the current method, a method uses the same few names over and over
+    private final Map<String, int[]> resolvedNames = new HashMap<>();
+
+    public IdentifierResolver(CompilationContext context) {
+        this.context = context;
+    }
+
+    private void visitMethodBody(MethodDeclaration methodDeclaration) {
+        SymbolTable classSymbolTable = currentSymbolTable;
+        MethodSymbolTableItem methodSymbolTableItem = (MethodSymbolTableItem) classSymbolTable.findItem(
+                MethodSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), true);
+        if(methodSymbolTableItem != null)
+            currentSymbolTable = methodSymbolTableItem.getMethodSymbolTable();
+        resolvedNames.clear();
+        for(Statement statement : methodDeclaration.getBody()) {
+            statement.accept(this);
+        }
+        currentSymbolTable = classSymbolTable;
+    }
+
+    private int[] resolve(String name) {
+        String key = LocalVariableSymbolTableItem.START_KEY + name;
+        int depth = currentSymbolTable.getDepthOf(key);
+        if(depth == -1)
+            return UNRESOLVED;
+        return new int[] {depth, currentSymbolTable.findItem(key, true).getSlot()};
+    }
+
+    private void visitIfPresent(Node node) {
+        if(node != null)
+            node.accept(this);
+    }
+
+    @Override
+    public Void visit(Program program) {
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            classDeclaration.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ClassDeclaration classDeclaration) {
+        ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem) context.getRoot().findItem(
+                ClassSymbolTableItem.START_KEY + classDeclaration.getClassName().getName(), true);
+        if(classSymbolTableItem == null)
+            return null;
+        currentSymbolTable = classSymbolTableItem.getClassSymbolTable();
+        if(classDeclaration.getConstructor() != null) {
+            classDeclaration.getConstructor().accept(this);
+        }
+        for(MethodDeclaration methodDeclaration : classDeclaration.getMethods()) {
+            methodDeclaration.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ConstructorDeclaration constructorDeclaration) {
+        visitMethodBody(constructorDeclaration);
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodDeclaration methodDeclaration) {
+        visitMethodBody(methodDeclaration);
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        visitIfPresent(assignmentStmt.getlValue());
+        visitIfPresent(assignmentStmt.getrValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        for(Statement statement : blockStmt.getStatements()) {
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        visitIfPresent(conditionalStmt.getCondition());
+        visitIfPresent(conditionalStmt.getThenBody());
+        visitIfPresent(conditionalStmt.getElseBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCallStmt methodCallStmt) {
+        visitIfPresent(methodCallStmt.getMethodCall());
+        return null;
+    }
+
+    @Override
+    public Void visit(PrintStmt print) {
+        visitIfPresent(print.getArg());
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        visitIfPresent(returnStmt.getReturnedExpr());
+        return null;
+    }
+
+    @Override
+    public Void visit(ForeachStmt foreachStmt) {
+        visitIfPresent(foreachStmt.getVariable());
+        visitIfPresent(foreachStmt.getList());
+        visitIfPresent(foreachStmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(ForStmt forStmt) {
+        visitIfPresent(forStmt.getInitialize());
+        visitIfPresent(forStmt.getCondition());
+        visitIfPresent(forStmt.getUpdate());
+        visitIfPresent(forStmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        visitIfPresent(binaryExpression.getFirstOperand());
+        visitIfPresent(binaryExpression.getSecondOperand());
+        return null;
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        visitIfPresent(unaryExpression.getOperand());
+        return null;
+    }
+
+    @Override
+    public Void visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        visitIfPresent(objectOrListMemberAccess.getInstance());
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        int[] resolved = resolvedNames.get(identifier.getName());
+        if(resolved == null) {
+            resolved = resolve(identifier.getName());
+            resolvedNames.put(identifier.getName(), resolved);
+        }
+        if(resolved != UNRESOLVED)
+            identifier.setResolvedSlot(resolved[0], resolved[1]);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        visitIfPresent(listAccessByIndex.getInstance());
+        visitIfPresent(listAccessByIndex.getIndex());
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCall methodCall) {
+        visitIfPresent(methodCall.getInstance());
+        for(Expression arg : methodCall.getArgs()) {
+            visitIfPresent(arg);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(NewClassInstance newClassInstance) {
+        for(Expression arg : newClassInstance.getArgs()) {
+            visitIfPresent(arg);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ListValue listValue) {
+        for(Expression element : listValue.getElements()) {
+            visitIfPresent(element);
+        }
+        return null;
+    }
+
+}
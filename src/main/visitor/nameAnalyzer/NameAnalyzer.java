@@ -1,54 +1,55 @@
 package main.visitor.nameAnalyzer;
 
+import main.CompilationContext;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.classDec.ClassDeclaration;
-import main.symbolTable.SymbolTable;
-import main.symbolTable.exceptions.ItemNotFoundException;
+import main.compileErrorException.DiagnosticSink;
 import main.symbolTable.items.ClassSymbolTableItem;
 import main.symbolTable.utils.graph.Graph;
-import main.symbolTable.utils.graph.exceptions.GraphDoesNotContainNodeException;
-import main.symbolTable.utils.graph.exceptions.NodeAlreadyExistsException;
 
 public class NameAnalyzer {
     private Program program;
-    private Graph<String> classHierarchy;
+    private CompilationContext context;
 
-    public NameAnalyzer(Program program) {
+    public NameAnalyzer(Program program, CompilationContext context) {
         this.program = program;
+        this.context = context;
     }
 
     public void analyze() {
-        NameCollector nameCollector = new NameCollector();
+        context.getDiagnostics().setPhase(DiagnosticSink.Phase.NAME_ANALYSIS);
+        NameCollector nameCollector = new NameCollector(context);
         this.program.accept(nameCollector);
         this.linkParentSymbolTables();
-        NameChecker nameChecker = new NameChecker(classHierarchy);
+        NameChecker nameChecker = new NameChecker(context);
         this.program.accept(nameChecker);
+        IdentifierResolver identifierResolver = new IdentifierResolver(context);
+        this.program.accept(identifierResolver);
     }
 
     private void linkParentSymbolTables() {
         Graph<String> classHierarchy = new Graph<>();
         for (ClassDeclaration classDeclaration : this.program.getClasses()) {
             String className = classDeclaration.getClassName().getName();
-            try {
-                classHierarchy.addNode(className);
-            } catch (NodeAlreadyExistsException ignored) { }
+            classHierarchy.tryAddNode(className);
             if (classDeclaration.getParentClassName() == null)
                 continue;
             String parentName = classDeclaration.getParentClassName().getName();
-            try {
-                classHierarchy.addNodeAsParentOf(className, parentName);
-                ClassSymbolTableItem parentSTI = (ClassSymbolTableItem) SymbolTable.root
-                        .getItem(ClassSymbolTableItem.START_KEY + parentName, true);
-                ClassSymbolTableItem thisClassSTI = (ClassSymbolTableItem) SymbolTable.root
-                        .getItem(ClassSymbolTableItem.START_KEY + className, true);
+            if (!classHierarchy.tryAddNodeAsParentOf(className, parentName))
+                continue;
+            ClassSymbolTableItem parentSTI = (ClassSymbolTableItem) context.getRoot()
+                    .findItem(ClassSymbolTableItem.START_KEY + parentName, true);
+            ClassSymbolTableItem thisClassSTI = (ClassSymbolTableItem) context.getRoot()
+                    .findItem(ClassSymbolTableItem.START_KEY + className, true);
+            if (parentSTI != null && thisClassSTI != null)
                 thisClassSTI.getClassSymbolTable().pre = parentSTI.getClassSymbolTable();
-            } catch (ItemNotFoundException | GraphDoesNotContainNodeException ignored) { }
         }
-        this.classHierarchy = classHierarchy;
+        classHierarchy.freeze();
+        context.setClassHierarchy(classHierarchy);
     }
 
     public Graph<String> getClassHierarchy() {
-        return classHierarchy;
+        return context.getClassHierarchy();
     }
 
 }
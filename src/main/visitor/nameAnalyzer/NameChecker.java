@@ -1,16 +1,17 @@
 package main.visitor.nameAnalyzer;
 
+import main.CompilationContext;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.classDec.ClassDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.compileErrorException.DiagnosticSink;
 import main.compileErrorException.nameErrors.ClassInCyclicInheritance;
 import main.compileErrorException.nameErrors.FieldRedefinition;
 import main.compileErrorException.nameErrors.MethodNameConflictWithField;
 import main.compileErrorException.nameErrors.MethodRedefinition;
 import main.symbolTable.SymbolTable;
-import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.ClassSymbolTableItem;
 import main.symbolTable.items.FieldSymbolTableItem;
 import main.symbolTable.items.MethodSymbolTableItem;
@@ -19,21 +20,23 @@ import main.visitor.Visitor;
 
 public class NameChecker extends Visitor<Void> {
     private String currentClassName;
+    private CompilationContext context;
+    private final DiagnosticSink diagnostics;
     private Graph<String> classHierarchy;
     Program root;
 
-    public NameChecker(Graph<String> classHierarchy) {
-        this.classHierarchy = classHierarchy;
+    public NameChecker(CompilationContext context) {
+        this.context = context;
+        this.diagnostics = context.getDiagnostics();
+        this.classHierarchy = context.getClassHierarchy();
     }
 
     private SymbolTable getCurrentClassSymbolTable() {
-        try {
-            ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem)
-                    SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + this.currentClassName, true);
-            return classSymbolTableItem.getClassSymbolTable();
-        } catch (ItemNotFoundException ignored) {
+        ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem)
+                context.getRoot().findItem(ClassSymbolTableItem.START_KEY + this.currentClassName, true);
+        if(classSymbolTableItem == null)
             return null;
-        }
+        return classSymbolTableItem.getClassSymbolTable();
     }
 
     @Override
@@ -51,7 +54,7 @@ public class NameChecker extends Visitor<Void> {
         if(classDeclaration.getParentClassName() != null) {
             if (this.classHierarchy.isSecondNodeAncestorOf(classDeclaration.getParentClassName().getName(), classDeclaration.getClassName().getName())) {
                 ClassInCyclicInheritance exception = new ClassInCyclicInheritance(classDeclaration);
-                classDeclaration.addError(exception);
+                diagnostics.report(classDeclaration, exception);
             }
         }
         for(FieldDeclaration fieldDeclaration : classDeclaration.getFields()) {
@@ -74,37 +77,30 @@ public class NameChecker extends Visitor<Void> {
 
     @Override
     public Void visit(MethodDeclaration methodDeclaration) {
-        if(!methodDeclaration.hasError()) {
-            try {
-                SymbolTable classSymbolTable = this.getCurrentClassSymbolTable();
-                classSymbolTable.getItem(MethodSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), false);
+        if(!diagnostics.hasErrors(methodDeclaration)) {
+            SymbolTable classSymbolTable = this.getCurrentClassSymbolTable();
+            if(classSymbolTable.findItem(MethodSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), false) != null) {
                 MethodRedefinition exception = new MethodRedefinition(methodDeclaration);
-                methodDeclaration.addError(exception);
-            } catch (ItemNotFoundException ignored) {
+                diagnostics.report(methodDeclaration, exception);
             }
         }
         boolean errored = false;
-        try {
-            SymbolTable classSymbolTable = this.getCurrentClassSymbolTable();
-            classSymbolTable.getItem(FieldSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), true);
+        SymbolTable classSymbolTable = this.getCurrentClassSymbolTable();
+        if(classSymbolTable.findItem(FieldSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), true) != null) {
             MethodNameConflictWithField exception = new MethodNameConflictWithField(methodDeclaration);
-            methodDeclaration.addError(exception);
+            diagnostics.report(methodDeclaration, exception);
             errored = true;
-        } catch (ItemNotFoundException ignored) {
         }
         if(!errored)
-            for(ClassDeclaration classDeclaration : root.getClasses()) {
-                String childName = classDeclaration.getClassName().getName();
-                if(classHierarchy.isSecondNodeAncestorOf(childName, currentClassName)) {
-                    try {
-                        ClassSymbolTableItem childSymbolTableItem = (ClassSymbolTableItem) SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + childName, true);
-                        SymbolTable childSymbolTable = childSymbolTableItem.getClassSymbolTable();
-                        childSymbolTable.getItem(FieldSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), true);
-                        MethodNameConflictWithField exception = new MethodNameConflictWithField(methodDeclaration);
-                        methodDeclaration.addError(exception);
-                        break;
-                    } catch (ItemNotFoundException ignored) {
-                    }
+            for(String childName : classHierarchy.getDescendantsOfNode(currentClassName)) {
+                ClassSymbolTableItem childSymbolTableItem = (ClassSymbolTableItem) context.getRoot().findItem(ClassSymbolTableItem.START_KEY + childName, true);
+                if(childSymbolTableItem == null)
+                    continue;
+                SymbolTable childSymbolTable = childSymbolTableItem.getClassSymbolTable();
+                if(childSymbolTable.findItem(FieldSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), true) != null) {
+                    MethodNameConflictWithField exception = new MethodNameConflictWithField(methodDeclaration);
+                    diagnostics.report(methodDeclaration, exception);
+                    break;
                 }
             }
         return null;
@@ -112,13 +108,11 @@ public class NameChecker extends Visitor<Void> {
 
     @Override
     public Void visit(FieldDeclaration fieldDeclaration) {
-        if(!fieldDeclaration.hasError()) {
-            try {
-                SymbolTable classSymbolTable = this.getCurrentClassSymbolTable();
-                classSymbolTable.getItem(FieldSymbolTableItem.START_KEY + fieldDeclaration.getVarDeclaration().getVarName().getName(), false);
+        if(!diagnostics.hasErrors(fieldDeclaration)) {
+            SymbolTable classSymbolTable = this.getCurrentClassSymbolTable();
+            if(classSymbolTable.findItem(FieldSymbolTableItem.START_KEY + fieldDeclaration.getVarDeclaration().getVarName().getName(), false) != null) {
                 FieldRedefinition exception = new FieldRedefinition(fieldDeclaration);
-                fieldDeclaration.addError(exception);
-            } catch (ItemNotFoundException ignored) {
+                diagnostics.report(fieldDeclaration, exception);
             }
         }
         return null;
@@ -1,17 +1,18 @@
 package main.visitor.nameAnalyzer;
 
+import main.CompilationContext;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.classDec.ClassDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
 import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.compileErrorException.DiagnosticSink;
 import main.compileErrorException.nameErrors.ClassRedefinition;
 import main.compileErrorException.nameErrors.FieldRedefinition;
 import main.compileErrorException.nameErrors.LocalVarRedefinition;
 import main.compileErrorException.nameErrors.MethodRedefinition;
 import main.symbolTable.SymbolTable;
-import main.symbolTable.exceptions.ItemAlreadyExistsException;
 import main.symbolTable.items.ClassSymbolTableItem;
 import main.symbolTable.items.FieldSymbolTableItem;
 import main.symbolTable.items.LocalVariableSymbolTableItem;
@@ -19,11 +20,23 @@ import main.symbolTable.items.MethodSymbolTableItem;
 import main.visitor.Visitor;
 
 public class NameCollector extends Visitor<Void> {
+    private final CompilationContext context;
+    private final DiagnosticSink diagnostics;
+
+    public NameCollector(CompilationContext context) {
+        this.context = context;
+        this.diagnostics = context.getDiagnostics();
+    }
+
+    //declared types are interned once here, so the type checker can compare them by identity
+    private void internDeclaredType(VarDeclaration varDeclaration) {
+        varDeclaration.setType(context.getTypeFactory().intern(varDeclaration.getType()));
+    }
 
     @Override
     public Void visit(Program program) {
-        SymbolTable.push(new SymbolTable());
-        SymbolTable.root = SymbolTable.top;
+        context.push(new SymbolTable());
+        context.setRoot(context.getTop());
         for(ClassDeclaration classDeclaration : program.getClasses()) {
             classDeclaration.accept(this);
         }
@@ -33,14 +46,12 @@ public class NameCollector extends Visitor<Void> {
     @Override
     public Void visit(ClassDeclaration classDeclaration) {
         ClassSymbolTableItem classSymbolTableItem = new ClassSymbolTableItem(classDeclaration);
-        SymbolTable.push(new SymbolTable(SymbolTable.top));
-        classSymbolTableItem.setClassSymbolTable(SymbolTable.top);
-        try {
-            SymbolTable.root.put(classSymbolTableItem);
-        } catch (ItemAlreadyExistsException e) {
+        context.push(new SymbolTable(context.getTop()));
+        classSymbolTableItem.setClassSymbolTable(context.getTop());
+        if(!context.getRoot().tryPut(classSymbolTableItem)) {
             ClassRedefinition exception = new ClassRedefinition(classDeclaration);
-            classDeclaration.addError(exception);
-            exception.handleException();
+            diagnostics.report(classDeclaration, exception);
+            exception.handleException(context);
         }
         for(FieldDeclaration fieldDeclaration : classDeclaration.getFields()) {
             fieldDeclaration.accept(this);
@@ -51,7 +62,7 @@ public class NameCollector extends Visitor<Void> {
         for(MethodDeclaration methodDeclaration : classDeclaration.getMethods()) {
             methodDeclaration.accept(this);
         }
-        SymbolTable.pop();
+        context.pop();
         return null;
     }
 
@@ -63,44 +74,44 @@ public class NameCollector extends Visitor<Void> {
 
     @Override
     public Void visit(MethodDeclaration methodDeclaration) {
+        methodDeclaration.setReturnType(context.getTypeFactory().intern(methodDeclaration.getReturnType()));
+        for(VarDeclaration varDeclaration : methodDeclaration.getArgs()) {
+            internDeclaredType(varDeclaration);
+        }
         MethodSymbolTableItem methodSymbolTableItem = new MethodSymbolTableItem(methodDeclaration);
-        SymbolTable methodSymbolTable = new SymbolTable(SymbolTable.top);
+        SymbolTable methodSymbolTable = new SymbolTable(context.getTop());
         methodSymbolTableItem.setMethodSymbolTable(methodSymbolTable);
-        try {
-            SymbolTable.top.put(methodSymbolTableItem);
-        } catch (ItemAlreadyExistsException e) {
+        if(!context.getTop().tryPut(methodSymbolTableItem)) {
             MethodRedefinition exception = new MethodRedefinition(methodDeclaration);
-            methodDeclaration.addError(exception);
+            diagnostics.report(methodDeclaration, exception);
         }
-        SymbolTable.push(methodSymbolTable);
+        context.push(methodSymbolTable);
         for(VarDeclaration varDeclaration : methodDeclaration.getArgs()) {
             varDeclaration.accept(this);
         }
         for(VarDeclaration varDeclaration : methodDeclaration.getLocalVars()) {
             varDeclaration.accept(this);
         }
-        SymbolTable.pop();
+        context.pop();
         return null;
     }
 
     @Override
     public Void visit(FieldDeclaration fieldDeclaration) {
-        try {
-            SymbolTable.top.put(new FieldSymbolTableItem(fieldDeclaration));
-        } catch (ItemAlreadyExistsException e) {
+        internDeclaredType(fieldDeclaration.getVarDeclaration());
+        if(!context.getTop().tryPut(new FieldSymbolTableItem(fieldDeclaration))) {
             FieldRedefinition exception = new FieldRedefinition(fieldDeclaration);
-            fieldDeclaration.addError(exception);
+            diagnostics.report(fieldDeclaration, exception);
         }
         return null;
     }
 
     @Override
     public Void visit(VarDeclaration varDeclaration) {
-        try {
-            SymbolTable.top.put(new LocalVariableSymbolTableItem(varDeclaration));
-        } catch (ItemAlreadyExistsException e) {
+        internDeclaredType(varDeclaration);
+        if(!context.getTop().tryPut(new LocalVariableSymbolTableItem(varDeclaration))) {
             LocalVarRedefinition exception = new LocalVarRedefinition(varDeclaration);
-            varDeclaration.addError(exception);
+            diagnostics.report(varDeclaration, exception);
         }
         return null;
     }
@@ -0,0 +1,220 @@
+package main.visitor.typeChecker;
+
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.NullType;
+import main.compileErrorException.DiagnosticSink;
+import main.compileErrorException.typeErrors.ContinueBreakNotInLoop;
+import main.compileErrorException.typeErrors.MissingReturnStatement;
+import main.compileErrorException.typeErrors.UnreachableStatements;
+import main.visitor.Visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+//Builds the ControlFlowGraph of a method body and reports what is wrong with the flow of control in it:
+//break and continue outside loops, statements right after a statement that can not complete normally and
+//methods that can get to the end of their body without returning a value.
+//A visit adds the vertices of the statement and links the vertices control falls out of (pending) to its first
+//one, which is the vertex of the statement itself. Nothing is pending after a statement that can not complete
+//normally, so the next statement of its sequence starts dead code; it is reported when the graph has no path
+//from ENTRY to its vertex.
+//Two rules of the unreachable statement checker this replaced are kept so the same statements are reported:
+//dead code in an else body is only looked for when the then body can not complete normally, and a conditional
+//whose then body leaves through a break or continue while its else body returns completes normally. For the
+//second one a visit returns how control leaves the statement, see Leaving.
+public class ControlFlowAnalyzer extends Visitor<ControlFlowAnalyzer.Leaving> {
+    //How the replaced checker saw control leave a statement: through the last return, or break or continue of a
+    //loop around it, that the statement has, not counting the inside of its own loops. NEVER exactly when the
+    //statement can complete normally.
+    enum Leaving {
+        NEVER, RETURN, JUMP
+    }
+
+    private static class Loop {
+        private final int head;
+        private final ArrayList<Integer> breaks = new ArrayList<>();
+
+        private Loop(int head) {
+            this.head = head;
+        }
+    }
+
+    private final DiagnosticSink diagnostics;
+    private ControlFlowGraph graph;
+    private ArrayList<Integer> pending;
+    private final ArrayDeque<Loop> loops = new ArrayDeque<>();
+    //the vertices of the statements control can not fall into from the statement before them
+    private final ArrayList<Integer> deadCodeStarts = new ArrayList<>();
+
+    public ControlFlowAnalyzer(DiagnosticSink diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    public ControlFlowGraph analyze(MethodDeclaration methodDeclaration) {
+        graph = new ControlFlowGraph();
+        pending = new ArrayList<>();
+        pending.add(ControlFlowGraph.ENTRY);
+        addSequence(methodDeclaration.getBody());
+        graph.setEndOfBody(pending);
+
+        //reported after the graph is built so they come after the errors of the statements themselves
+        boolean[] reachable = graph.getReachableFromEntry();
+        for (int vertex : deadCodeStarts) {
+            if (!reachable[vertex]) {
+                Statement statement = graph.getStatement(vertex);
+                diagnostics.report(statement, new UnreachableStatements(statement));
+            }
+        }
+        deadCodeStarts.clear();
+        if (!(methodDeclaration.getReturnType() instanceof NullType) && graph.canReachEndOfBody()) {
+            diagnostics.report(methodDeclaration, new MissingReturnStatement(methodDeclaration));
+        }
+
+        ControlFlowGraph methodGraph = graph;
+        graph = null;
+        pending = null;
+        return methodGraph;
+    }
+
+    //once a statement of the sequence can not complete normally the rest of it is dead code, so the sequence
+    //can not complete normally either, even when a statement in that dead code can; it leaves the way its last
+    //statement that can not complete normally does
+    private Leaving addSequence(ArrayList<Statement> statements) {
+        Leaving sequenceLeaving = Leaving.NEVER;
+        for (Statement statement : statements) {
+            if (pending.isEmpty()) {
+                deadCodeStarts.add(graph.size());
+            }
+            Leaving statementLeaving = statement.accept(this);
+            if (statementLeaving != Leaving.NEVER) {
+                sequenceLeaving = statementLeaving;
+            }
+        }
+        if (sequenceLeaving != Leaving.NEVER) {
+            pending = new ArrayList<>();
+        }
+        return sequenceLeaving;
+    }
+
+    //links pending to the new vertex, which becomes the only one pending
+    private int addVertex(Statement statement) {
+        int vertex = graph.addVertex(statement);
+        graph.addEdges(pending, vertex);
+        pending = new ArrayList<>();
+        pending.add(vertex);
+        return vertex;
+    }
+
+    private Leaving addSimpleStatement(Statement statement) {
+        addVertex(statement);
+        return Leaving.NEVER;
+    }
+
+    private Leaving addLoop(Statement loopStatement, Statement body) {
+        Loop loop = new Loop(addVertex(loopStatement));
+        loops.push(loop);
+        body.accept(this);
+        loops.pop();
+        graph.addEdges(pending, loop.head);
+        pending = new ArrayList<>();
+        pending.add(loop.head);
+        pending.addAll(loop.breaks);
+        return Leaving.NEVER;
+    }
+
+    @Override
+    public Leaving visit(BlockStmt blockStmt) {
+        addVertex(blockStmt);
+        return addSequence(blockStmt.getStatements());
+    }
+
+    @Override
+    public Leaving visit(ConditionalStmt conditionalStmt) {
+        int condition = addVertex(conditionalStmt);
+        Leaving thenLeaving = conditionalStmt.getThenBody().accept(this);
+        ArrayList<Integer> afterThen = pending;
+        pending = new ArrayList<>();
+        pending.add(condition);
+        Leaving conditionalLeaving = Leaving.NEVER;
+        if (conditionalStmt.getElseBody() != null) {
+            int numberOfDeadCodeStarts = deadCodeStarts.size();
+            Leaving elseLeaving = conditionalStmt.getElseBody().accept(this);
+            if (thenLeaving == Leaving.NEVER) {
+                //the replaced checker returned before it looked at the else body when the then body could
+                //complete normally, so it never reported dead code in it. The else body stays in the graph,
+                //control can still get to the end of the body through it.
+                deadCodeStarts.subList(numberOfDeadCodeStarts, deadCodeStarts.size()).clear();
+            } else if (elseLeaving == Leaving.JUMP) {
+                conditionalLeaving = Leaving.JUMP;
+            } else if (elseLeaving == Leaving.RETURN && thenLeaving == Leaving.RETURN) {
+                conditionalLeaving = Leaving.RETURN;
+            } else if (elseLeaving == Leaving.RETURN) {
+                //the then body breaks or continues and the else body returns: the replaced checker took the
+                //conditional as one that completes normally, so the statement after it is not dead code
+                pending.add(condition);
+            }
+        }
+        pending.addAll(afterThen);
+        return conditionalLeaving;
+    }
+
+    @Override
+    public Leaving visit(MethodCallStmt methodCallStmt) {
+        return addSimpleStatement(methodCallStmt);
+    }
+
+    @Override
+    public Leaving visit(PrintStmt print) {
+        return addSimpleStatement(print);
+    }
+
+    @Override
+    public Leaving visit(AssignmentStmt assignmentStmt) {
+        return addSimpleStatement(assignmentStmt);
+    }
+
+    @Override
+    public Leaving visit(ReturnStmt returnStmt) {
+        graph.addEdge(addVertex(returnStmt), ControlFlowGraph.EXIT);
+        pending = new ArrayList<>();
+        return Leaving.RETURN;
+    }
+
+    //a break or continue outside a loop is reported and then taken as a statement that does nothing
+    @Override
+    public Leaving visit(BreakStmt breakStmt) {
+        if (loops.isEmpty()) {
+            diagnostics.report(breakStmt, new ContinueBreakNotInLoop(breakStmt.getLine(), 0));
+            return addSimpleStatement(breakStmt);
+        }
+        loops.peek().breaks.add(addVertex(breakStmt));
+        pending = new ArrayList<>();
+        return Leaving.JUMP;
+    }
+
+    @Override
+    public Leaving visit(ContinueStmt continueStmt) {
+        if (loops.isEmpty()) {
+            diagnostics.report(continueStmt, new ContinueBreakNotInLoop(continueStmt.getLine(), 1));
+            return addSimpleStatement(continueStmt);
+        }
+        graph.addEdge(addVertex(continueStmt), loops.peek().head);
+        pending = new ArrayList<>();
+        return Leaving.JUMP;
+    }
+
+    @Override
+    public Leaving visit(ForeachStmt foreachStmt) {
+        return addLoop(foreachStmt, foreachStmt.getBody());
+    }
+
+    @Override
+    public Leaving visit(ForStmt forStmt) {
+        return addLoop(forStmt, forStmt.getBody());
+    }
+}
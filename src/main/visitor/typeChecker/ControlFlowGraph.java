@@ -0,0 +1,87 @@
+package main.visitor.typeChecker;
+
+import main.ast.nodes.statement.Statement;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+
+//The control flow graph of one method body, made by the ControlFlowAnalyzer.
+//Every statement is a vertex; a block, a conditional or a loop has a vertex of its own that control passes
+//before it enters the statements inside it, and loops are left and repeated through that vertex.
+//Conditions are never evaluated, so both branches of a conditional and both leaving and entering a loop
+//are always possible. Every return goes to EXIT, and so does the end of the body.
+public class ControlFlowGraph {
+    public static final int ENTRY = 0;
+    public static final int EXIT = 1;
+
+    private final ArrayList<Statement> statements = new ArrayList<>();
+    private final ArrayList<ArrayList<Integer>> successors = new ArrayList<>();
+    private final ArrayList<Integer> endOfBody = new ArrayList<>();
+
+    ControlFlowGraph() {
+        addVertex(null);
+        addVertex(null);
+    }
+
+    int addVertex(Statement statement) {
+        statements.add(statement);
+        successors.add(new ArrayList<>());
+        return statements.size() - 1;
+    }
+
+    void addEdge(int from, int to) {
+        successors.get(from).add(to);
+    }
+
+    void addEdges(ArrayList<Integer> from, int to) {
+        for (int vertex : from) {
+            addEdge(vertex, to);
+        }
+    }
+
+    //the vertices control reaches EXIT from without a return
+    void setEndOfBody(ArrayList<Integer> vertices) {
+        endOfBody.addAll(vertices);
+        addEdges(vertices, EXIT);
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    //null for ENTRY and EXIT
+    public Statement getStatement(int vertex) {
+        return statements.get(vertex);
+    }
+
+    public ArrayList<Integer> getSuccessors(int vertex) {
+        return successors.get(vertex);
+    }
+
+    public boolean[] getReachableFromEntry() {
+        boolean[] reachable = new boolean[size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        reachable[ENTRY] = true;
+        queue.add(ENTRY);
+        while (!queue.isEmpty()) {
+            for (int successor : successors.get(queue.poll())) {
+                if (!reachable[successor]) {
+                    reachable[successor] = true;
+                    queue.add(successor);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    //whether control can get to the end of the body without passing a return
+    public boolean canReachEndOfBody() {
+        boolean[] reachable = getReachableFromEntry();
+        for (int vertex : endOfBody) {
+            if (reachable[vertex]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,6 +1,8 @@
 package main.visitor.typeChecker;
 
+import main.CompilationContext;
 import main.ast.nodes.Node;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
 import main.ast.nodes.declaration.variableDec.VarDeclaration;
 import main.ast.nodes.expression.*;
@@ -11,9 +13,13 @@ import main.ast.nodes.expression.values.primitive.BoolValue;
 import main.ast.nodes.expression.values.primitive.IntValue;
 import main.ast.nodes.expression.values.primitive.StringValue;
 import main.ast.types.NoType;
+import main.ast.types.SubtypeCache;
+import main.ast.types.TypeFactory;
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 import main.ast.types.functionPointer.FptrType;
 import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListSegment;
 import main.ast.types.list.ListType;
 import main.ast.types.single.BoolType;
 import main.ast.types.single.ClassType;
@@ -21,51 +27,107 @@ import main.ast.types.single.IntType;
 import main.ast.types.single.StringType;
 import main.ast.types.NullType;
 import main.ast.nodes.expression.operators.BinaryOperator;
+import main.compileErrorException.DiagnosticSink;
 import main.compileErrorException.typeErrors.*;
 import main.symbolTable.items.*;
+import main.symbolTable.MemberLookupCache;
+import main.symbolTable.SymbolDependencies;
 import main.symbolTable.SymbolTable;
-import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.utils.graph.Graph;
 import main.visitor.Visitor;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class ExpressionTypeChecker extends Visitor<Type> {
-    private final Graph<String> classHierarchy;
+    private enum Subtyping { NOT_SUBTYPE, SUBTYPE, STRUCTURAL }
+
+    //indexed by the kinds of the subtype and the supertype; STRUCTURAL pairs are compared by isSubtype
+    private static final Subtyping[][] SUBTYPE_TABLE = new Subtyping[TypeKind.values().length][TypeKind.values().length];
+
+    static {
+        for (Subtyping[] row : SUBTYPE_TABLE) {
+            Arrays.fill(row, Subtyping.NOT_SUBTYPE);
+        }
+        Arrays.fill(SUBTYPE_TABLE[TypeKind.NO_TYPE.ordinal()], Subtyping.SUBTYPE);
+        for (TypeKind kind : new TypeKind[] {TypeKind.INT, TypeKind.BOOL, TypeKind.STRING, TypeKind.NULL}) {
+            SUBTYPE_TABLE[kind.ordinal()][kind.ordinal()] = Subtyping.SUBTYPE;
+        }
+        SUBTYPE_TABLE[TypeKind.NULL.ordinal()][TypeKind.CLASS.ordinal()] = Subtyping.SUBTYPE;
+        SUBTYPE_TABLE[TypeKind.NULL.ordinal()][TypeKind.FPTR.ordinal()] = Subtyping.SUBTYPE;
+        for (TypeKind kind : new TypeKind[] {TypeKind.CLASS, TypeKind.FPTR, TypeKind.LIST}) {
+            SUBTYPE_TABLE[kind.ordinal()][kind.ordinal()] = Subtyping.STRUCTURAL;
+        }
+    }
 
-    public ExpressionTypeChecker(Graph<String> classHierarchy) {
-        this.classHierarchy = classHierarchy;
+    private final CompilationContext context;
+    private final DiagnosticSink diagnostics;
+    private final Graph<String> classHierarchy;
+    private final TypeFactory typeFactory;
+    private final MemberLookupCache memberLookupCache;
+    private final SubtypeCache subtypeCache;
+    //declared types are interned, so every distinct type is validated once per compilation
+    private final Map<Type, Boolean> validatedTypes = new IdentityHashMap<>();
+
+    //state shared with the TypeChecker that owns this checker
+    //null unless the compilation records dependencies; the answers kept for later checks are not used then,
+    //a kept answer would hide what computing it read
+    final SymbolDependencies.Recorder recorder;
+    SymbolTable currentSymbolTable;
+    ClassDeclaration currentClassDeclaration;
+    boolean hasSeenNoneLValue = false;
+    boolean inMethodCallStatement = false;
+
+    public ExpressionTypeChecker(CompilationContext context) {
+        this.context = context;
+        this.diagnostics = context.getDiagnostics();
+        this.classHierarchy = context.getClassHierarchy();
+        this.typeFactory = context.getTypeFactory();
+        this.memberLookupCache = context.getMemberLookupCache();
+        this.subtypeCache = context.getSubtypeCache();
+        SymbolDependencies symbolDependencies = context.getSymbolDependencies();
+        this.recorder = symbolDependencies == null ? null : symbolDependencies.newRecorder();
     }
 
     public boolean checkVarListType(ListType listType) {
-        ArrayList<ListNameType> listElementTypes = listType.getElementsTypes();
-        boolean hasDuplicateKey = false;
         boolean validNameType = true;
-        Set<String> hashSet = new HashSet<String>();
-        for (ListNameType listNameType : listElementTypes) {
-            if (!validateVarType(listNameType.getType())) {
+        for (ListSegment segment : listType.getSegments()) {
+            if (!validateVarType(segment.getElementType().getType())) {
                 validNameType = false;
             }
-            if (hashSet.contains(listNameType.getName().getName())) {
-                hasDuplicateKey = true;
-            }
-            if (!listNameType.getName().getName().equals("")) {
-                hashSet.add(listNameType.getName().getName());
-            }
         }
-        return !hasDuplicateKey && validNameType ;
+        return !listType.hasDuplicateName() && validNameType ;
     }
 
     public boolean validateVarType(Type varDecType) {
+        if (!(varDecType instanceof ClassType || varDecType instanceof ListType || varDecType instanceof FptrType)) {
+            return true;
+        }
+        if (recorder != null) {
+            return computeVarTypeValidity(varDecType);
+        }
+        Boolean isValid = validatedTypes.get(varDecType);
+        if (isValid == null) {
+            isValid = computeVarTypeValidity(varDecType);
+            validatedTypes.put(varDecType, isValid);
+        }
+        return isValid;
+    }
+
+    private boolean computeVarTypeValidity(Type varDecType) {
         if (varDecType instanceof ClassType) {
             String className = ((ClassType) varDecType).getClassName().getName();
             //                node.addError(new ClassNotDeclared(node.getLine(), className));
+            if (recorder != null) {
+                recorder.readClass(className);
+            }
             return classHierarchy.doesGraphContainNode(className);
         } else if (varDecType instanceof ListType) {
-            if (((ListType) varDecType).getElementsTypes().size() == 0) {
+            if (((ListType) varDecType).isEmpty()) {
 //                node.addError(new CannotHaveEmptyList(node.getLine()));
                 return false;
             }
@@ -87,6 +149,9 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
     public boolean isClassSubtype(ClassType subType, ClassType superType) {
+        if (recorder != null) {
+            recorder.readAncestors(classHierarchy, subType.getClassName().getName(), superType.getClassName().getName());
+        }
         return classHierarchy.isSecondNodeAncestorOf(
                 subType.getClassName().getName(),
                 superType.getClassName().getName()
@@ -111,71 +176,89 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
     public boolean isListSubtype(ListType subType, ListType superType) {
-        ArrayList<ListNameType> subTypeElements = subType.getElementsTypes();
-        ArrayList<ListNameType> superTypeElements = superType.getElementsTypes();
-        if (subTypeElements.size() != superTypeElements.size()) {
+        if (subType.size() != superType.size()) {
             return false;
         }
 
-        for (int i = 0; i < subTypeElements.size(); i++) {
-            if (!isSubtype(subTypeElements.get(i).getType(), superTypeElements.get(i).getType())) {
+        //walks both segment lists at once, each overlap of two segments is checked once
+        List<ListSegment> subTypeSegments = subType.getSegments();
+        List<ListSegment> superTypeSegments = superType.getSegments();
+        int subTypeIndex = 0;
+        int superTypeIndex = 0;
+        while (subTypeIndex < subTypeSegments.size() && superTypeIndex < superTypeSegments.size()) {
+            ListSegment subTypeSegment = subTypeSegments.get(subTypeIndex);
+            ListSegment superTypeSegment = superTypeSegments.get(superTypeIndex);
+            if (!isSubtype(subTypeSegment.getElementType().getType(), superTypeSegment.getElementType().getType())) {
                 return false;
             }
+            int subTypeEnd = subTypeSegment.getStart() + subTypeSegment.getCount();
+            int superTypeEnd = superTypeSegment.getStart() + superTypeSegment.getCount();
+            if (subTypeEnd <= superTypeEnd) {
+                subTypeIndex++;
+            }
+            if (superTypeEnd <= subTypeEnd) {
+                superTypeIndex++;
+            }
         }
 
         return true;
     }
 
     public boolean isSubtype(Type subType, Type superType) {
-        if (subType instanceof IntType && superType instanceof IntType) {
+        //every type is a subtype of itself, interned types make this the common case
+        if (subType == superType && subType != null) {
             return true;
         }
-
-        if (subType instanceof NoType) {
-            return true;
+        if (subType == null) {
+            return false;
         }
-
-        if (subType instanceof BoolType && superType instanceof BoolType) {
-            return true;
+        if (superType == null) {
+            return subType.getKind() == TypeKind.NO_TYPE;
         }
 
-        if (subType instanceof StringType && superType instanceof StringType) {
-            return true;
+        switch (SUBTYPE_TABLE[subType.getKind().ordinal()][superType.getKind().ordinal()]) {
+            case SUBTYPE:
+                return true;
+            case STRUCTURAL:
+                if (subType.getKind() == TypeKind.CLASS) {
+                    return isClassSubtype((ClassType) subType, (ClassType) superType);
+                }
+                return isCachedSubtype(subType, superType);
+            default:
+                return false;
         }
+    }
 
-        if (subType instanceof NullType && superType instanceof NullType) {
-            return true;
+    //function pointers and lists are compared element by element, the answer is kept for the compilation
+    private boolean isCachedSubtype(Type subType, Type superType) {
+        Boolean cached = recorder == null ? subtypeCache.get(subType, superType) : null;
+        if (cached != null) {
+            return cached;
         }
-
-        if (subType instanceof NullType && superType instanceof ClassType) {
-            return true;
+        boolean isSubtype;
+        if (subType.getKind() == TypeKind.FPTR) {
+            isSubtype = isFptrSubtype((FptrType) subType, (FptrType) superType);
+        } else {
+            isSubtype = isListSubtype((ListType) subType, (ListType) superType);
         }
-
-//        if (subType instanceof ClassType && superType instanceof NullType) {
-//            return false;
-//        }
-
-        if (subType instanceof NullType && superType instanceof FptrType) {
-            return true;
+        if (recorder == null) {
+            subtypeCache.put(subType, superType, isSubtype);
         }
+        return isSubtype;
+    }
 
-//        if (subType instanceof FptrType && superType instanceof NullType) {
-//            return false;
-//        }
-
-        if (subType instanceof ClassType && superType instanceof ClassType) {
-            return isClassSubtype((ClassType) subType, (ClassType) superType);
+    //same kind of type and, for classes, the same class; function pointers are not compared further
+    public boolean isSameType(Type firstType, Type secondType) {
+        if (firstType == secondType) {
+            return true;
         }
-
-        if (subType instanceof FptrType && superType instanceof FptrType) {
-            return isFptrSubtype((FptrType) subType, (FptrType) superType);
+        if (firstType.getKind() != secondType.getKind()) {
+            return false;
         }
-
-        if (subType instanceof ListType && superType instanceof ListType) {
-            return isListSubtype((ListType) subType, (ListType) superType);
+        if (firstType.getKind() == TypeKind.CLASS) {
+            return ((ClassType) firstType).getClassName().getName().equals(((ClassType) secondType).getClassName().getName());
         }
-
-        return false;
+        return true;
     }
 
     public boolean isEqualitySupported(Type firstOperandType, Type secondOperandType) {
@@ -188,7 +271,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             return false;
         }
 
-        if (firstOperandType.toString().equals(secondOperandType.toString())) {
+        if (isSameType(firstOperandType, secondOperandType)) {
             return true;
         }
 
@@ -211,11 +294,23 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
 
+    //types are interned per compilation, so the answer can be kept in the list type itself
     public boolean isAllElementsHaveSameType(ListType list) {
-        ArrayList<ListNameType> elementNameTypes = list.getElementsTypes();
-        Type firstElementType = elementNameTypes.get(0).getType();
-        for (ListNameType listNameType : elementNameTypes) {
-            Type nameType = listNameType.getType();
+        if (recorder != null) {
+            return computeAllElementsHaveSameType(list);
+        }
+        Boolean homogeneous = list.getHomogeneous();
+        if (homogeneous == null) {
+            homogeneous = computeAllElementsHaveSameType(list);
+            list.setHomogeneous(homogeneous);
+        }
+        return homogeneous;
+    }
+
+    private boolean computeAllElementsHaveSameType(ListType list) {
+        Type firstElementType = list.getElementType(0).getType();
+        for (ListSegment segment : list.getSegments()) {
+            Type nameType = segment.getElementType().getType();
 
             if (!(
                     firstElementType instanceof NoType ||
@@ -229,86 +324,72 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
     public Type findListElementTypeByIndex(ListType list, Expression index, boolean isSingleType) {
-        ArrayList<ListNameType> elementNameTypes = list.getElementsTypes();
         if (isSingleType) {
-            return elementNameTypes.get(0).getType();
+            return list.getElementType(0).getType();
         } else {
             int indexNumber = ((IntValue) index).getConstant();
-            if (indexNumber >= elementNameTypes.size()) {
-                return elementNameTypes.get(0).getType();
+            if (indexNumber >= list.size()) {
+                return list.getElementType(0).getType();
             }
-            return elementNameTypes.get(indexNumber).getType();
+            return list.getElementType(indexNumber).getType();
         }
     }
 
 
-    public Type findMember(String memberName, String className) {
-        try {
-            MethodSymbolTableItem methodSymbolTableItem = (MethodSymbolTableItem) currentSymbolTable.getItem(MethodSymbolTableItem.START_KEY + memberName, true);
-            hasSeenNoneLValue = true;
-            return new FptrType(methodSymbolTableItem.getArgTypes(), methodSymbolTableItem.getReturnType());
-        } catch (ItemNotFoundException e) {
-            try {
-                FieldSymbolTableItem fieldSymbolTableItem = (FieldSymbolTableItem) currentSymbolTable.getItem(FieldSymbolTableItem.START_KEY + memberName, true);
-                Type fieldType = fieldSymbolTableItem.getType();
-                if (!validateVarType(fieldType)) {
-                    return new NoType();
-                }
-                return fieldType;
-            } catch (ItemNotFoundException e2) {
-                if (className.equals(memberName)) {
-                    FptrType constructor = new FptrType();
-                    constructor.setReturnType(new NullType());
-                    hasSeenNoneLValue = true;
-                    return constructor;
+    public Type findMember(MemberLookupCache.Member member) {
+        switch (member.getKind()) {
+            case METHOD:
+            case CONSTRUCTOR:
+                hasSeenNoneLValue = true;
+                return member.getType();
+            case FIELD:
+                if (!validateVarType(member.getType())) {
+                    return NoType.INSTANCE;
                 }
+                return member.getType();
+            default:
                 return null;
-            }
         }
-
     }
 
-    public Type findElement(ArrayList<ListNameType> listElementsTypes, String elementKey) {
-        for (ListNameType listElementsType: listElementsTypes) {
-            if (listElementsType.getName().getName().equals(elementKey)) {
-                return listElementsType.getType();
-            }
+    public Type findElement(ListType listType, String elementKey) {
+        ListNameType element = listType.findElement(elementKey);
+        if (element == null) {
+            return null;
         }
-        return null;
+        return element.getType();
     }
 
     public Type classMemberAccess(ObjectOrListMemberAccess objectOrListMemberAccess, ClassType instanceType, Expression memberName) {
         Identifier classId = instanceType.getClassName();
-        try {
-            ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem) SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + classId.getName(), true);
-            SymbolTable classSymbolTable;
-            classSymbolTable = classSymbolTableItem.getClassSymbolTable();
-            currentSymbolTable = classSymbolTable;
-            String memberNameStr = ((Identifier) memberName).getName();
-            Type memberNameType = findMember(memberNameStr, classId.getName());
-            if (memberNameType == null) {
-                objectOrListMemberAccess.addError(new MemberNotAvailableInClass(objectOrListMemberAccess.getLine(), memberNameStr, classId.getName()));
-                return new NoType();
-            }
-            return memberNameType;
-        } catch (ItemNotFoundException e) {
+        String memberNameStr = ((Identifier) memberName).getName();
+        MemberLookupCache.Member member = memberLookupCache.lookup(classId.getName(), memberNameStr);
+        if (recorder != null) {
+            recorder.readMember(classId.getName(), memberNameStr, member);
+        }
+        if (member == null) {
 //            objectOrListMemberAccess.addError(new ClassNotDeclared(objectOrListMemberAccess.getLine(), classId.getName()));
 //            return new NoType();
             System.out.println("wtfffffffffff");
+            return null;
         }
-        return null;
+        Type memberNameType = findMember(member);
+        if (memberNameType == null) {
+            diagnostics.report(objectOrListMemberAccess, new MemberNotAvailableInClass(objectOrListMemberAccess.getLine(), memberNameStr, classId.getName()));
+            return NoType.INSTANCE;
+        }
+        return memberNameType;
     }
 
     public Type listMemberAccess(ObjectOrListMemberAccess objectOrListMemberAccess, ListType instanceType, Expression memberName) {
-        ArrayList<ListNameType> listElementsTypes = instanceType.getElementsTypes();
         String memberNameStr = ((Identifier) memberName).getName();
-        Type memberNameType = findElement(listElementsTypes, memberNameStr);
+        Type memberNameType = findElement(instanceType, memberNameStr);
         if (memberNameType == null) {
-            objectOrListMemberAccess.addError(new ListMemberNotFound(objectOrListMemberAccess.getLine(), memberNameStr));
-            return new NoType();
+            diagnostics.report(objectOrListMemberAccess, new ListMemberNotFound(objectOrListMemberAccess.getLine(), memberNameStr));
+            return NoType.INSTANCE;
         }
         if (!validateVarType(memberNameType)) {
-            return new NoType();
+            return NoType.INSTANCE;
         }
         return memberNameType;
     }
@@ -352,12 +433,12 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 binaryOperator == BinaryOperator.mod
         ) {
             if (firstOperandType instanceof IntType && secondOperandType instanceof IntType) {
-                return new IntType();
-            } else if (!isSubtype(firstOperandType, new IntType()) || !isSubtype(secondOperandType, new IntType())) {
-                binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
-                return new NoType();
+                return IntType.INSTANCE;
+            } else if (!isSubtype(firstOperandType, IntType.INSTANCE) || !isSubtype(secondOperandType, IntType.INSTANCE)) {
+                diagnostics.report(binaryExpression, new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
+                return NoType.INSTANCE;
             }
-            return new NoType();
+            return NoType.INSTANCE;
         }
 
 
@@ -366,12 +447,12 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 binaryOperator == BinaryOperator.gt
         ) {
             if (firstOperandType instanceof IntType && secondOperandType instanceof IntType) {
-                return new BoolType();
-            } else if (!isSubtype(firstOperandType, new IntType()) || !isSubtype(secondOperandType, new IntType())) {
-                binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
-                return new NoType();
+                return BoolType.INSTANCE;
+            } else if (!isSubtype(firstOperandType, IntType.INSTANCE) || !isSubtype(secondOperandType, IntType.INSTANCE)) {
+                diagnostics.report(binaryExpression, new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
+                return NoType.INSTANCE;
             }
-            return new NoType();
+            return NoType.INSTANCE;
         }
 
         if (
@@ -379,12 +460,12 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 binaryOperator == BinaryOperator.and
         ) {
             if (firstOperandType instanceof BoolType && secondOperandType instanceof BoolType) {
-                return new BoolType();
-            } else if (!isSubtype(firstOperandType, new BoolType()) || !isSubtype(secondOperandType, new BoolType())) {
-                binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
-                return new NoType();
+                return BoolType.INSTANCE;
+            } else if (!isSubtype(firstOperandType, BoolType.INSTANCE) || !isSubtype(secondOperandType, BoolType.INSTANCE)) {
+                diagnostics.report(binaryExpression, new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
+                return NoType.INSTANCE;
             }
-            return new NoType();
+            return NoType.INSTANCE;
         }
 
         if (
@@ -392,12 +473,12 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 binaryOperator == BinaryOperator.neq
         ) {
             if (isEqualitySupported(firstOperandType, secondOperandType)) {
-                return new BoolType();
+                return BoolType.INSTANCE;
             } else if (!isSecondOperandNoType && !isFirstOperandNoType) {
-                binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
-                return new NoType();
+                diagnostics.report(binaryExpression, new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
+                return NoType.INSTANCE;
             }
-            return new NoType();
+            return NoType.INSTANCE;
         }
 
         if (
@@ -405,21 +486,21 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         ) {
             boolean isExpressionCorrect = true;
             if (!isFirstOperandLHS) {
-                binaryExpression.addError(new LeftSideNotLvalue(binaryExpression.getLine()));
+                diagnostics.report(binaryExpression, new LeftSideNotLvalue(binaryExpression.getLine()));
                 isExpressionCorrect = false;
             }
             if (isFirstOperandNoType || isSecondOperandNoType) {
                 isExpressionCorrect = false;
             }
             if (!isSubtype(secondOperandType, firstOperandType) && !(firstOperandType instanceof NoType)) {
-                binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
+                diagnostics.report(binaryExpression, new UnsupportedOperandType(binaryExpression.getLine(), binaryOperator.name()));
                 isExpressionCorrect = false;
             }
 
             if (isExpressionCorrect) {
                 return firstOperandType;
             } else {
-                return new NoType();
+                return NoType.INSTANCE;
             }
         }
 
@@ -446,43 +527,43 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         ) {
             boolean isExpressionCorrect = true;
             if (!isOperandLHS) {
-                unaryExpression.addError(new IncDecOperandNotLvalue(unaryExpression.getLine(), unaryOperator.name()));
+                diagnostics.report(unaryExpression, new IncDecOperandNotLvalue(unaryExpression.getLine(), unaryOperator.name()));
                 isExpressionCorrect = false;
             }
             if (operandType instanceof NoType) {
                 isExpressionCorrect = false;
             }
-            if (!isSubtype(operandType, new IntType())) {
-                unaryExpression.addError(new UnsupportedOperandType(unaryExpression.getLine(), unaryOperator.name()));
+            if (!isSubtype(operandType, IntType.INSTANCE)) {
+                diagnostics.report(unaryExpression, new UnsupportedOperandType(unaryExpression.getLine(), unaryOperator.name()));
                 isExpressionCorrect = false;
             }
 
             if (isExpressionCorrect) {
-                return new IntType();
+                return IntType.INSTANCE;
             } else {
-                return new NoType();
+                return NoType.INSTANCE;
             }
         }
 
         if (unaryOperator == UnaryOperator.minus) {
             if (operandType instanceof NoType) {
-                return new NoType();
-            } else if (isSubtype(operandType, new IntType())) {
-                return new IntType();
+                return NoType.INSTANCE;
+            } else if (isSubtype(operandType, IntType.INSTANCE)) {
+                return IntType.INSTANCE;
             } else {
-                unaryExpression.addError(new UnsupportedOperandType(unaryExpression.getLine(), unaryOperator.name()));
-                return new NoType();
+                diagnostics.report(unaryExpression, new UnsupportedOperandType(unaryExpression.getLine(), unaryOperator.name()));
+                return NoType.INSTANCE;
             }
         }
 
         if (unaryOperator == UnaryOperator.not) {
             if (operandType instanceof NoType) {
-                return new NoType();
-            } else if (isSubtype(operandType, new BoolType())) {
-                return new BoolType();
+                return NoType.INSTANCE;
+            } else if (isSubtype(operandType, BoolType.INSTANCE)) {
+                return BoolType.INSTANCE;
             } else {
-                unaryExpression.addError(new UnsupportedOperandType(unaryExpression.getLine(), unaryOperator.name()));
-                return new NoType();
+                diagnostics.report(unaryExpression, new UnsupportedOperandType(unaryExpression.getLine(), unaryOperator.name()));
+                return NoType.INSTANCE;
             }
         }
         return null;
@@ -507,20 +588,17 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
         if (!(instanceType instanceof ClassType || instanceType instanceof ListType || isInstanceNoType)) {
             isInstanceCorrect = false;
-            objectOrListMemberAccess.addError(new MemberAccessOnNoneObjOrListType(objectOrListMemberAccess.getLine()));
+            diagnostics.report(objectOrListMemberAccess, new MemberAccessOnNoneObjOrListType(objectOrListMemberAccess.getLine()));
         }
 
         if (!isInstanceCorrect || isInstanceNoType) {
-            return new NoType();
+            return NoType.INSTANCE;
         }
 
         //member is identifier so it doesn't need accept
         Identifier memberName = objectOrListMemberAccess.getMemberName();
         if (instanceType instanceof ClassType) {
-            SymbolTable preSymbolTable = currentSymbolTable;
-            Type classMemberType = classMemberAccess(objectOrListMemberAccess, (ClassType) instanceType, memberName);
-            currentSymbolTable = preSymbolTable;
-            return classMemberType;
+            return classMemberAccess(objectOrListMemberAccess, (ClassType) instanceType, memberName);
         }
         // so instanceType is instanceof ListType
         else {
@@ -531,21 +609,20 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
     @Override
     public Type visit(Identifier identifier) {
-        try {
-            LocalVariableSymbolTableItem localVariableSymbolTableItem =
-                    (LocalVariableSymbolTableItem) currentSymbolTable.getItem(
-                            LocalVariableSymbolTableItem.START_KEY + identifier.getName(),
-                            true
-                    );
-            Type idType = localVariableSymbolTableItem.getType();
-            if (!validateVarType(idType)) {
-                return new NoType();
-            }
-            return localVariableSymbolTableItem.getType();
-        } catch (ItemNotFoundException e2) {
-            identifier.addError(new VarNotDeclared(identifier.getLine(), identifier.getName()));
-            return new NoType();
-        }
+        if (!identifier.isResolved()) {
+            diagnostics.report(identifier, new VarNotDeclared(identifier.getLine(), identifier.getName()));
+            return NoType.INSTANCE;
+        }
+        LocalVariableSymbolTableItem localVariableSymbolTableItem =
+                (LocalVariableSymbolTableItem) currentSymbolTable.getItemAt(
+                        identifier.getScopeDepth(),
+                        identifier.getSlot()
+                );
+        Type idType = localVariableSymbolTableItem.getType();
+        if (!validateVarType(idType)) {
+            return NoType.INSTANCE;
+        }
+        return localVariableSymbolTableItem.getType();
     }
 
     @Override
@@ -559,7 +636,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
 
         if (isInstanceCorrect && !(instanceType instanceof ListType)) {
-            listAccessByIndex.addError(new ListAccessByIndexOnNoneList(listAccessByIndex.getLine()));
+            diagnostics.report(listAccessByIndex, new ListAccessByIndexOnNoneList(listAccessByIndex.getLine()));
             isInstanceCorrect = false;
         }
 
@@ -571,9 +648,9 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
         boolean isIndexCorrect = true;
 
-        if (!isSubtype(indexType, new IntType())) {
+        if (!isSubtype(indexType, IntType.INSTANCE)) {
             isIndexCorrect = false;
-            listAccessByIndex.addError(new ListIndexNotInt(listAccessByIndex.getLine()));
+            diagnostics.report(listAccessByIndex, new ListIndexNotInt(listAccessByIndex.getLine()));
         }
 
         boolean isListSingleType = true;
@@ -582,7 +659,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             isListSingleType = isAllElementsHaveSameType((ListType) instanceType);
             if (!isListSingleType) {
                 if (!(index instanceof IntValue)) {
-                    listAccessByIndex.addError(new CantUseExprAsIndexOfMultiTypeList(listAccessByIndex.getLine()));
+                    diagnostics.report(listAccessByIndex, new CantUseExprAsIndexOfMultiTypeList(listAccessByIndex.getLine()));
                     isIndexCorrect = false;
                 }
             }
@@ -591,11 +668,11 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         if (isInstanceCorrect && isIndexCorrect) {
             Type elementType = findListElementTypeByIndex((ListType) instanceType, index, isListSingleType);
             if (!validateVarType(elementType)) {
-                return new NoType();
+                return NoType.INSTANCE;
             }
             return elementType;
         } else {
-            return new NoType();
+            return NoType.INSTANCE;
         }
 
     }
@@ -620,8 +697,8 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         if (instanceType instanceof FptrType) {
             Type returnType = ((FptrType) instanceType).getReturnType();
             if (returnType instanceof NullType && !inMethodCallStatement) {
-                methodCall.addError(new CantUseValueOfVoidMethod(methodCall.getLine()));
-                returnType = new NoType();
+                diagnostics.report(methodCall, new CantUseValueOfVoidMethod(methodCall.getLine()));
+                returnType = NoType.INSTANCE;
             }
 
             ArrayList<Type> methodArgsTypes = ((FptrType) instanceType).getArgumentsTypes();
@@ -640,22 +717,22 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 }
             }
             if (!sizeMatch || !argTypesMatch) {
-                methodCall.addError(new MethodCallNotMatchDefinition(methodCall.getLine()));
-                return new NoType();
+                diagnostics.report(methodCall, new MethodCallNotMatchDefinition(methodCall.getLine()));
+                return NoType.INSTANCE;
             }
             if (!validateVarType(returnType)) {
-                return new NoType();
+                return NoType.INSTANCE;
             }
             return returnType;
         }
 
 
         if (instanceType instanceof NoType) {
-            return new NoType();
+            return NoType.INSTANCE;
         }
 
-        methodCall.addError(new CallOnNoneFptrType(methodCall.getLine()));
-        return new NoType();
+        diagnostics.report(methodCall, new CallOnNoneFptrType(methodCall.getLine()));
+        return NoType.INSTANCE;
     }
 
     @Override
@@ -673,47 +750,49 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
         hasSeenNoneLValue = true;
 
-        try {
-            constructor = ((ClassSymbolTableItem) SymbolTable.root.getItem
-                    (
-                            ClassSymbolTableItem.START_KEY + classType.getClassName().getName(),
-                            true
-                    )
-            ).getClassDeclaration().getConstructor();
-            if (constructor == null) {
-                if (!passedArgs.isEmpty()) {
-                    newClassInstance.addError(new ConstructorArgsNotMatchDefinition(newClassInstance));
-                    return new NoType();
-                }
-            } else {
-                constructorArgs = constructor.getArgs();
-                boolean sizeMatch = false;
-                boolean argTypesMatch = true;
-                if (constructorArgs.size() == passedArgs.size()) {
-                    sizeMatch = true;
-                    for (int i = 0; i < passedArgs.size(); i++) {
-                        if (!isSubtype(passedArgs.get(i), constructorArgs.get(i).getType())) {
-                            argTypesMatch = false;
-                            break;
-                        }
+        ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem) context.getRoot().findItem
+                (
+                        ClassSymbolTableItem.START_KEY + classType.getClassName().getName(),
+                        true
+                );
+        if (recorder != null) {
+            recorder.readClass(classType.getClassName().getName());
+        }
+        if (classSymbolTableItem == null) {
+            diagnostics.report(newClassInstance, new ClassNotDeclared(newClassInstance.getLine(), newClassInstance.getClassType().getClassName().getName()));
+            return NoType.INSTANCE;
+        }
+        constructor = classSymbolTableItem.getClassDeclaration().getConstructor();
+        if (constructor == null) {
+            if (!passedArgs.isEmpty()) {
+                diagnostics.report(newClassInstance, new ConstructorArgsNotMatchDefinition(newClassInstance));
+                return NoType.INSTANCE;
+            }
+        } else {
+            constructorArgs = constructor.getArgs();
+            boolean sizeMatch = false;
+            boolean argTypesMatch = true;
+            if (constructorArgs.size() == passedArgs.size()) {
+                sizeMatch = true;
+                for (int i = 0; i < passedArgs.size(); i++) {
+                    if (!isSubtype(passedArgs.get(i), constructorArgs.get(i).getType())) {
+                        argTypesMatch = false;
+                        break;
                     }
                 }
-                if (!sizeMatch || !argTypesMatch) {
-                    newClassInstance.addError(new ConstructorArgsNotMatchDefinition(newClassInstance));
-                    return new NoType();
-                }
             }
-            return classType;
-        } catch (ItemNotFoundException e) {
-            newClassInstance.addError(new ClassNotDeclared(newClassInstance.getLine(), newClassInstance.getClassType().getClassName().getName()));
-            return new NoType();
+            if (!sizeMatch || !argTypesMatch) {
+                diagnostics.report(newClassInstance, new ConstructorArgsNotMatchDefinition(newClassInstance));
+                return NoType.INSTANCE;
+            }
         }
+        return typeFactory.classType(classType.getClassName().getName());
     }
 
     @Override
     public Type visit(ThisClass thisClass) {
         hasSeenNoneLValue = true;
-        return new ClassType(currentClassDeclaration.getClassName());
+        return typeFactory.classType(currentClassDeclaration.getClassName().getName());
     }
 
     @Override
@@ -729,30 +808,30 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             elementsTypes.add(new ListNameType(expType));
         }
         hasSeenNoneLValue = true;
-        return new ListType(elementsTypes);
+        return typeFactory.listType(elementsTypes);
     }
 
     @Override
     public Type visit(NullValue nullValue) {
         hasSeenNoneLValue = true;
-        return new NullType();
+        return NullType.INSTANCE;
     }
 
     @Override
     public Type visit(IntValue intValue) {
         hasSeenNoneLValue = true;
-        return new IntType();
+        return IntType.INSTANCE;
     }
 
     @Override
     public Type visit(BoolValue boolValue) {
         hasSeenNoneLValue = true;
-        return new BoolType();
+        return BoolType.INSTANCE;
     }
 
     @Override
     public Type visit(StringValue stringValue) {
         hasSeenNoneLValue = true;
-        return new StringType();
+        return StringType.INSTANCE;
     }
 }
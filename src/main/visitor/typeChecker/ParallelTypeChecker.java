@@ -0,0 +1,58 @@
+package main.visitor.typeChecker;
+
+import main.CompilationContext;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.compileErrorException.DiagnosticSink;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Type checks the classes of a program on a fork join pool, every task with a TypeChecker of its own.
+//After name analysis the symbol tables and the class hierarchy are only read and the caches in the context are
+//thread safe, so classes can be checked independently. Errors are printed in the canonical order of the
+//DiagnosticSink, so the output is the same as after program.accept(new TypeChecker(context)).
+public class ParallelTypeChecker {
+    //classes are split in halves until a task has at most this many of them
+    private static final int CLASSES_PER_TASK = 8;
+
+    private final CompilationContext context;
+    private final ForkJoinPool pool;
+
+    public ParallelTypeChecker(CompilationContext context, ForkJoinPool pool) {
+        this.context = context;
+        this.pool = pool;
+    }
+
+    public void check(Program program) {
+        context.getDiagnostics().setPhase(DiagnosticSink.Phase.TYPE_CHECKING);
+        List<ClassDeclaration> classes = program.getClasses();
+        pool.invoke(new CheckTask(classes, 0, classes.size()));
+        new TypeChecker(context).checkMainExists(program);
+    }
+
+    private class CheckTask extends RecursiveAction {
+        private final List<ClassDeclaration> classes;
+        private final int from;
+        private final int to;
+
+        private CheckTask(List<ClassDeclaration> classes, int from, int to) {
+            this.classes = classes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CLASSES_PER_TASK) {
+                TypeChecker typeChecker = new TypeChecker(context);
+                for (int i = from; i < to; i++)
+                    typeChecker.checkClass(classes.get(i));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CheckTask(classes, from, middle), new CheckTask(classes, middle, to));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package main.visitor.typeChecker;
 
+import main.CompilationContext;
 import main.ast.nodes.Node;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.classDec.ClassDeclaration;
@@ -11,36 +12,36 @@ import main.ast.nodes.expression.Expression;
 import main.ast.nodes.expression.Identifier;
 import main.ast.nodes.expression.operators.BinaryOperator;
 import main.ast.nodes.statement.*;
-import main.ast.nodes.statement.loop.BreakStmt;
-import main.ast.nodes.statement.loop.ContinueStmt;
 import main.ast.nodes.statement.loop.ForStmt;
 import main.ast.nodes.statement.loop.ForeachStmt;
 import main.ast.types.NoType;
 import main.ast.types.Type;
 import main.ast.types.functionPointer.FptrType;
 import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListSegment;
 import main.ast.types.list.ListType;
 import main.ast.types.single.BoolType;
 import main.ast.types.single.ClassType;
-import main.ast.types.single.IntType;
-import main.ast.types.single.StringType;
+import main.compileErrorException.DiagnosticSink;
 import main.compileErrorException.typeErrors.*;
+import main.symbolTable.SymbolDependencies;
 import main.symbolTable.SymbolTable;
-import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.ClassSymbolTableItem;
 import main.symbolTable.items.MethodSymbolTableItem;
 import main.symbolTable.utils.graph.Graph;
 import main.visitor.Visitor;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
 
 public class TypeChecker extends Visitor<Void> {
+    private final CompilationContext context;
+    private final DiagnosticSink diagnostics;
     private final Graph<String> classHierarchy;
     private final ExpressionTypeChecker expressionTypeChecker;
-    private final ReturnStatementChecker returnStatementChecker;
-    private final UnreachableStmtChecker unreachableStmtChecker;
+    private final ControlFlowAnalyzer controlFlowAnalyzer;
+    //null unless the compilation records dependencies
+    private final SymbolDependencies.Recorder recorder;
+    private Type currentReturnType;
 
     public Void checkMethodDeclaration(MethodDeclaration methodDeclaration) {
         ArrayList<VarDeclaration> args = methodDeclaration.getArgs();
@@ -64,17 +65,20 @@ public class TypeChecker extends Visitor<Void> {
     public void validateVarType(Type varDecType, Node node) {
         if (varDecType instanceof ClassType) {
             String className = ((ClassType) varDecType).getClassName().getName();
+            if (recorder != null) {
+                recorder.readClass(className);
+            }
             boolean doesClassExist = classHierarchy.doesGraphContainNode(className);
             if (!doesClassExist) {
-                node.addError(new ClassNotDeclared(node.getLine(), className));
+                diagnostics.report(node, new ClassNotDeclared(node.getLine(), className));
             }
         } else if (varDecType instanceof ListType) {
-            if (((ListType) varDecType).getElementsTypes().size() == 0) {
-                node.addError(new CannotHaveEmptyList(node.getLine()));
+            if (((ListType) varDecType).isEmpty()) {
+                diagnostics.report(node, new CannotHaveEmptyList(node.getLine()));
             }
             boolean listHasDuplicateKey = checkListHasDuplicateKey((ListType) varDecType, node);
             if (listHasDuplicateKey) {
-                node.addError(new DuplicateListId(node.getLine()));
+                diagnostics.report(node, new DuplicateListId(node.getLine()));
             }
         } else if (varDecType instanceof FptrType) {
             validateVarType(((FptrType) varDecType).getReturnType(), node);
@@ -85,40 +89,46 @@ public class TypeChecker extends Visitor<Void> {
         }
     }
 
+    //the subtypes of int, string and bool
     public boolean isPrintSupported(Type argType) {
-        if (expressionTypeChecker.isSubtype(argType, new IntType())) {
-            return true;
-        } else if (expressionTypeChecker.isSubtype(argType, new StringType())) {
-            return true;
-        } else if (expressionTypeChecker.isSubtype(argType, new BoolType())) {
-            return true;
-        }
-        return false;
+        if (argType == null) {
+            return false;
+        }
+        switch (argType.getKind()) {
+            case INT:
+            case STRING:
+            case BOOL:
+            case NO_TYPE:
+                return true;
+            default:
+                return false;
+        }
     }
 
     public boolean checkListHasDuplicateKey(ListType listType, Node node) {
-        ArrayList<ListNameType> listElementTypes = listType.getElementsTypes();
-        boolean hasDuplicateKey = false;
-        Set<String> hashSet = new HashSet<String>();
-        for (ListNameType listNameType : listElementTypes) {
+        for (ListSegment segment : listType.getSegments()) {
+            ListNameType listNameType = segment.getElementType();
 //            VarDeclaration varDeclaration = new VarDeclaration(listNameType.getName(), listNameType.getType());
 //            varDeclaration.accept(this);
+            //the errors of an invalid element type are reported once per element
+            int numberOfErrors = diagnostics.getNumberOfErrors(node);
             validateVarType(listNameType.getType(), node);
-            if (hashSet.contains(listNameType.getName().getName())) {
-                hasDuplicateKey = true;
-            }
-            if (!listNameType.getName().getName().equals("")) {
-                hashSet.add(listNameType.getName().getName());
+            if (diagnostics.getNumberOfErrors(node) != numberOfErrors) {
+                for (int i = 1; i < segment.getCount(); i++) {
+                    validateVarType(listNameType.getType(), node);
+                }
             }
         }
-        return hasDuplicateKey;
+        return listType.hasDuplicateName();
     }
 
-    public TypeChecker(Graph<String> classHierarchy) {
-        this.classHierarchy = classHierarchy;
-        this.expressionTypeChecker = new ExpressionTypeChecker(classHierarchy);
-        this.returnStatementChecker = new ReturnStatementChecker();
-        this.unreachableStmtChecker = new UnreachableStmtChecker();
+    public TypeChecker(CompilationContext context) {
+        this.context = context;
+        this.diagnostics = context.getDiagnostics();
+        this.classHierarchy = context.getClassHierarchy();
+        this.expressionTypeChecker = new ExpressionTypeChecker(context);
+        this.controlFlowAnalyzer = new ControlFlowAnalyzer(diagnostics);
+        this.recorder = expressionTypeChecker.recorder;
     }
 
     public boolean isClassMain(ClassDeclaration classDeclaration) {
@@ -126,16 +136,13 @@ public class TypeChecker extends Visitor<Void> {
     }
 
     public Void setCurrentSymbolTable(String declarationName) {
-        SymbolTable preSymbolTable = currentSymbolTable;
-        try {
-            currentSymbolTable = (
-                    (MethodSymbolTableItem) preSymbolTable.getItem(
-                            MethodSymbolTableItem.START_KEY + declarationName,
-                            true
-                    )
-            ).getMethodSymbolTable();
-        } catch (ItemNotFoundException e) {
-
+        SymbolTable preSymbolTable = expressionTypeChecker.currentSymbolTable;
+        MethodSymbolTableItem methodSymbolTableItem = (MethodSymbolTableItem) preSymbolTable.findItem(
+                MethodSymbolTableItem.START_KEY + declarationName,
+                true
+        );
+        if (methodSymbolTableItem != null) {
+            expressionTypeChecker.currentSymbolTable = methodSymbolTableItem.getMethodSymbolTable();
         }
         return null;
     }
@@ -143,15 +150,15 @@ public class TypeChecker extends Visitor<Void> {
     public Void validateMain(ClassDeclaration mainDeclaration) {
         Identifier parent = mainDeclaration.getParentClassName();
         if (parent != null) {
-            mainDeclaration.addError(new MainClassCantExtend(mainDeclaration.getLine()));
+            diagnostics.report(mainDeclaration, new MainClassCantExtend(mainDeclaration.getLine()));
         }
         ConstructorDeclaration constructorDeclaration = mainDeclaration.getConstructor();
         if (constructorDeclaration == null) {
-            mainDeclaration.addError(new NoConstructorInMainClass(mainDeclaration));
+            diagnostics.report(mainDeclaration, new NoConstructorInMainClass(mainDeclaration));
         } else {
             constructorDeclaration.accept(this);
             if (!constructorDeclaration.getArgs().isEmpty()) {
-                mainDeclaration.addError(new MainConstructorCantHaveArgs(constructorDeclaration.getLine()));
+                diagnostics.report(mainDeclaration, new MainConstructorCantHaveArgs(constructorDeclaration.getLine()));
             }
 
         }
@@ -161,12 +168,15 @@ public class TypeChecker extends Visitor<Void> {
     public Void validateClass(ClassDeclaration classDeclaration) {
         Identifier parent = classDeclaration.getParentClassName();
         if (parent != null) {
+            if (recorder != null) {
+                recorder.readClass(parent.getName());
+            }
             boolean doesParentExist = classHierarchy.doesGraphContainNode(parent.getName());
             if (!doesParentExist) {
-                classDeclaration.addError(new ClassNotDeclared(classDeclaration.getLine(), parent.getName()));
+                diagnostics.report(classDeclaration, new ClassNotDeclared(classDeclaration.getLine(), parent.getName()));
             }
             if (parent.getName().equals("Main")) {
-                classDeclaration.addError(new CannotExtendFromMainClass(classDeclaration.getLine()));
+                diagnostics.report(classDeclaration, new CannotExtendFromMainClass(classDeclaration.getLine()));
             }
         }
 
@@ -177,36 +187,50 @@ public class TypeChecker extends Visitor<Void> {
         return null;
     }
 
-    @Override
-    public Void visit(Program program) {
-        currentSymbolTable = SymbolTable.root;
+    public void checkMainExists(Program program) {
         boolean mainExists = false;
         for (ClassDeclaration classDeclaration : program.getClasses()) {
-            classDeclaration.accept(this);
             if (isClassMain(classDeclaration)) {
                 mainExists = true;
             }
         }
 
         if (!mainExists) {
-            program.addError(new NoMainClass());
+            diagnostics.report(program, new NoMainClass());
+        }
+    }
+
+    //checks one class as if it was the first one of the program
+    public void checkClass(ClassDeclaration classDeclaration) {
+        expressionTypeChecker.currentSymbolTable = context.getRoot();
+        classDeclaration.accept(this);
+    }
+
+    @Override
+    public Void visit(Program program) {
+        diagnostics.setPhase(DiagnosticSink.Phase.TYPE_CHECKING);
+        expressionTypeChecker.currentSymbolTable = context.getRoot();
+        for (ClassDeclaration classDeclaration : program.getClasses()) {
+            classDeclaration.accept(this);
         }
+        checkMainExists(program);
         return null;
     }
 
     @Override
     public Void visit(ClassDeclaration classDeclaration) {
-        currentClassDeclaration = classDeclaration;
-
-        try {
-            currentSymbolTable = (
-                    (ClassSymbolTableItem) SymbolTable.root.getItem(
-                            ClassSymbolTableItem.START_KEY + classDeclaration.getClassName().getName(),
-                            true
-                    )
-            ).getClassSymbolTable();
-        } catch (ItemNotFoundException e) {
+        expressionTypeChecker.currentClassDeclaration = classDeclaration;
+        if (recorder != null) {
+            recorder.enterUnit(classDeclaration.getClassName().getName());
+            recorder.readClass(classDeclaration.getClassName().getName());
+        }
 
+        ClassSymbolTableItem classSymbolTableItem = (ClassSymbolTableItem) context.getRoot().findItem(
+                ClassSymbolTableItem.START_KEY + classDeclaration.getClassName().getName(),
+                true
+        );
+        if (classSymbolTableItem != null) {
+            expressionTypeChecker.currentSymbolTable = classSymbolTableItem.getClassSymbolTable();
         }
 
 
@@ -226,31 +250,46 @@ public class TypeChecker extends Visitor<Void> {
             methodDeclaration.accept(this);
         }
 
-        currentClassDeclaration = null;
+        if (recorder != null) {
+            recorder.exitUnit();
+        }
+        expressionTypeChecker.currentClassDeclaration = null;
         return null;
     }
 
     @Override
     public Void visit(ConstructorDeclaration constructorDeclaration) {
-        SymbolTable preSymbolTable = currentSymbolTable;
+        SymbolTable preSymbolTable = expressionTypeChecker.currentSymbolTable;
         setCurrentSymbolTable(constructorDeclaration.getMethodName().getName());
-        String currentClassDeclarationName = currentClassDeclaration.getClassName().getName();
+        String currentClassDeclarationName = expressionTypeChecker.currentClassDeclaration.getClassName().getName();
+        if (recorder != null) {
+            recorder.enterUnit(SymbolDependencies.methodUnit(currentClassDeclarationName,
+                    constructorDeclaration.getMethodName().getName()));
+        }
         if (!constructorDeclaration.getMethodName().getName().equals(currentClassDeclarationName)) {
-            constructorDeclaration.addError(new ConstructorNotSameNameAsClass(constructorDeclaration.getLine()));
+            diagnostics.report(constructorDeclaration, new ConstructorNotSameNameAsClass(constructorDeclaration.getLine()));
         }
-        currentReturnType = currentClassDeclaration.getConstructor().getReturnType();
+        currentReturnType = expressionTypeChecker.currentClassDeclaration.getConstructor().getReturnType();
 
         checkMethodDeclaration(constructorDeclaration);
-        unreachableStmtChecker.checkMethodReachable(constructorDeclaration);
+        controlFlowAnalyzer.analyze(constructorDeclaration);
+        if (recorder != null) {
+            recorder.exitUnit();
+        }
 
-        currentSymbolTable = preSymbolTable;
+        expressionTypeChecker.currentSymbolTable = preSymbolTable;
         return null;
     }
 
     @Override
     public Void visit(MethodDeclaration methodDeclaration) {
-        SymbolTable preSymbolTable = currentSymbolTable;
+        SymbolTable preSymbolTable = expressionTypeChecker.currentSymbolTable;
         setCurrentSymbolTable(methodDeclaration.getMethodName().getName());
+        if (recorder != null) {
+            recorder.enterUnit(SymbolDependencies.methodUnit(
+                    expressionTypeChecker.currentClassDeclaration.getClassName().getName(),
+                    methodDeclaration.getMethodName().getName()));
+        }
 //        doesReturnStatementExist = false;
         Type returnType = methodDeclaration.getReturnType();
         validateVarType(returnType, methodDeclaration);
@@ -259,16 +298,21 @@ public class TypeChecker extends Visitor<Void> {
         checkMethodDeclaration(methodDeclaration);
         if (returnType instanceof ClassType) {
             String className = ((ClassType) returnType).getClassName().getName();
+            if (recorder != null) {
+                recorder.readClass(className);
+            }
             boolean doesClassExist = classHierarchy.doesGraphContainNode(className);
             if (!doesClassExist) {
-                methodDeclaration.addError(new ClassNotDeclared(methodDeclaration.getLine(), className));
+                diagnostics.report(methodDeclaration, new ClassNotDeclared(methodDeclaration.getLine(), className));
             }
-            currentReturnType = new NoType();
+            currentReturnType = NoType.INSTANCE;
         }
 
-        returnStatementChecker.isReturnStatementAvailable(methodDeclaration);
-        unreachableStmtChecker.checkMethodReachable(methodDeclaration);
-        currentSymbolTable = preSymbolTable;
+        controlFlowAnalyzer.analyze(methodDeclaration);
+        if (recorder != null) {
+            recorder.exitUnit();
+        }
+        expressionTypeChecker.currentSymbolTable = preSymbolTable;
         currentReturnType = null;
 
         return null;
@@ -293,7 +337,7 @@ public class TypeChecker extends Visitor<Void> {
         Expression lValue = assignmentStmt.getlValue();
         Expression rValue = assignmentStmt.getrValue();
         Type rValueType = rValue.accept(expressionTypeChecker);
-        hasSeenNoneLValue = false;
+        expressionTypeChecker.hasSeenNoneLValue = false;
         Type lValueType = lValue.accept(expressionTypeChecker);
 
 //        if (expressionTypeChecker.isOperandVoidMethodCall(lValue, lValueType)) {
@@ -309,12 +353,12 @@ public class TypeChecker extends Visitor<Void> {
         boolean isLValueNoType = lValueType instanceof NoType;
         boolean isRValueNoType = rValueType instanceof NoType;
 
-        if (hasSeenNoneLValue) {
-            assignmentStmt.addError(new LeftSideNotLvalue(assignmentStmt.getLine()));
+        if (expressionTypeChecker.hasSeenNoneLValue) {
+            diagnostics.report(assignmentStmt, new LeftSideNotLvalue(assignmentStmt.getLine()));
         }
 
         if (!(isLValueNoType || isRValueNoType || expressionTypeChecker.isSubtype(rValueType, lValueType))) {
-            assignmentStmt.addError(new UnsupportedOperandType(assignmentStmt.getLine(), BinaryOperator.assign.name()));
+            diagnostics.report(assignmentStmt, new UnsupportedOperandType(assignmentStmt.getLine(), BinaryOperator.assign.name()));
         }
 
         return null;
@@ -335,8 +379,8 @@ public class TypeChecker extends Visitor<Void> {
         Statement thenBody = conditionalStmt.getThenBody();
         Statement elseBody = conditionalStmt.getElseBody();
         Type conditionType = condition.accept(expressionTypeChecker);
-        if (!(expressionTypeChecker.isSubtype(conditionType, new BoolType()))) {
-            conditionalStmt.addError(new ConditionNotBool(conditionalStmt.getLine()));
+        if (!(expressionTypeChecker.isSubtype(conditionType, BoolType.INSTANCE))) {
+            diagnostics.report(conditionalStmt, new ConditionNotBool(conditionalStmt.getLine()));
         }
         thenBody.accept(this);
         if (elseBody != null) {
@@ -347,9 +391,9 @@ public class TypeChecker extends Visitor<Void> {
 
     @Override
     public Void visit(MethodCallStmt methodCallStmt) {
-        inMethodCallStatement = true;
+        expressionTypeChecker.inMethodCallStatement = true;
         methodCallStmt.getMethodCall().accept(expressionTypeChecker);
-        inMethodCallStatement = false;
+        expressionTypeChecker.inMethodCallStatement = false;
         return null;
     }
 
@@ -358,7 +402,7 @@ public class TypeChecker extends Visitor<Void> {
         Expression arg = print.getArg();
         Type argType = arg.accept(expressionTypeChecker);
         if (!isPrintSupported(argType)) {
-            print.addError(new UnsupportedTypeForPrint(print.getLine()));
+            diagnostics.report(print, new UnsupportedTypeForPrint(print.getLine()));
         }
         return null;
     }
@@ -367,55 +411,36 @@ public class TypeChecker extends Visitor<Void> {
     public Void visit(ReturnStmt returnStmt) {
         Type returnType = returnStmt.getReturnedExpr().accept(expressionTypeChecker);
         if (!expressionTypeChecker.isSubtype(returnType, currentReturnType)) {
-            returnStmt.addError(new ReturnValueNotMatchMethodReturnType(returnStmt));
+            diagnostics.report(returnStmt, new ReturnValueNotMatchMethodReturnType(returnStmt));
         }
 //        doesReturnStatementExist = true;
         return null;
     }
 
-    @Override
-    public Void visit(BreakStmt breakStmt) {
-        if (nestedLoopsCount == 0) {
-            breakStmt.addError(new ContinueBreakNotInLoop(breakStmt.getLine(), 0));
-        }
-        return null;
-    }
-
-    @Override
-    public Void visit(ContinueStmt continueStmt) {
-        if (nestedLoopsCount == 0) {
-            continueStmt.addError(new ContinueBreakNotInLoop(continueStmt.getLine(), 1));
-        }
-        return null;
-    }
-
     @Override
     public Void visit(ForeachStmt foreachStmt) {
         Identifier variable = foreachStmt.getVariable();
         Expression list = foreachStmt.getList();
         Statement body = foreachStmt.getBody();
-        nestedLoopsCount += 1;
         Type variableType = variable.accept(expressionTypeChecker);
         Type listType = list.accept(expressionTypeChecker);
 
         if (listType instanceof ListType) {
             boolean isListSingleType = expressionTypeChecker.isAllElementsHaveSameType((ListType) listType);
             if (!isListSingleType) {
-                foreachStmt.addError(new ForeachListElementsNotSameType(foreachStmt.getLine()));
+                diagnostics.report(foreachStmt, new ForeachListElementsNotSameType(foreachStmt.getLine()));
             }
 
-            ArrayList<ListNameType> elementNameTypes = ((ListType) listType).getElementsTypes();
-            Type firstElementType = elementNameTypes.get(0).getType();
-            if (!variableType.toString().equals(firstElementType.toString())) {
-                foreachStmt.addError(new ForeachVarNotMatchList(foreachStmt));
+            Type firstElementType = ((ListType) listType).getElementType(0).getType();
+            if (!expressionTypeChecker.isSameType(variableType, firstElementType)) {
+                diagnostics.report(foreachStmt, new ForeachVarNotMatchList(foreachStmt));
             }
 
         } else if (!(listType instanceof NoType)){
-            foreachStmt.addError(new ForeachCantIterateNoneList(foreachStmt.getLine()));
+            diagnostics.report(foreachStmt, new ForeachCantIterateNoneList(foreachStmt.getLine()));
         }
 
         body.accept(this);
-        nestedLoopsCount -= 1;
 
         return null;
     }
@@ -426,15 +451,13 @@ public class TypeChecker extends Visitor<Void> {
         Expression condition = forStmt.getCondition();
         AssignmentStmt update = forStmt.getUpdate();
         Statement body = forStmt.getBody();
-        nestedLoopsCount += 1;
         initialize.accept(this);
         update.accept(this);
         Type conditionType = condition.accept(expressionTypeChecker);
-        if (!(expressionTypeChecker.isSubtype(conditionType, new BoolType()))) {
-            forStmt.addError(new ConditionNotBool(forStmt.getLine()));
+        if (!(expressionTypeChecker.isSubtype(conditionType, BoolType.INSTANCE))) {
+            diagnostics.report(forStmt, new ConditionNotBool(forStmt.getLine()));
         }
         body.accept(this);
-        nestedLoopsCount -= 1;
         return null;
     }
 
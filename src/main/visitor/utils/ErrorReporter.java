@@ -19,46 +19,81 @@ import main.ast.nodes.statement.loop.ContinueStmt;
 import main.ast.nodes.statement.loop.ForStmt;
 import main.ast.nodes.statement.loop.ForeachStmt;
 import main.compileErrorException.CompileErrorException;
+import main.compileErrorException.DiagnosticSink;
 import main.visitor.Visitor;
 
-import java.util.ArrayList;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+//Prints the errors in the DiagnosticSink in the canonical order and removes them.
+//The program is walked in the order errors have always been printed in to rank the nodes that have errors;
+//classes are only walked until all of them are ranked.
 public class ErrorReporter extends Visitor<Integer> {
+    private final DiagnosticSink diagnostics;
+    private final PrintStream out;
+    private Set<Node> nodesWithErrors;
+    private final Map<Node, Integer> ranks = new IdentityHashMap<>();
+    private List<CompileErrorException> reported = Collections.emptyList();
+
+    public ErrorReporter(DiagnosticSink diagnostics) {
+        this(diagnostics, System.out);
+    }
 
-    private int printErrors(Node node) {
-        ArrayList<CompileErrorException> errors = node.flushErrors();
-        for(CompileErrorException compileErrorException : errors) {
-            System.out.println(compileErrorException.getMessage());
-        }
-        return errors.size();
+    public ErrorReporter(DiagnosticSink diagnostics, PrintStream out) {
+        this.diagnostics = diagnostics;
+        this.out = out;
+    }
+
+    //the errors the last walk of a program printed, in the order they were printed in
+    public List<CompileErrorException> getReported() {
+        return reported;
+    }
+
+    private void rank(Node node) {
+        if(nodesWithErrors.contains(node) && !ranks.containsKey(node))
+            ranks.put(node, ranks.size());
     }
 
     @Override
     public Integer visit(Program program) {
-        int numOfErrors = printErrors(program);
+        nodesWithErrors = diagnostics.getNodesWithErrors();
+        ranks.clear();
+        rank(program);
         for(ClassDeclaration classDeclaration : program.getClasses()) {
-            numOfErrors += classDeclaration.accept(this);
+            if(ranks.size() == nodesWithErrors.size())
+                break;
+            classDeclaration.accept(this);
         }
-        return numOfErrors;
+        //errors of nodes that are not part of the program are never printed
+        List<CompileErrorException> errors = diagnostics.drain(ranks);
+        reported = errors;
+        for(CompileErrorException compileErrorException : errors) {
+            out.println(compileErrorException.getMessage());
+        }
+        return errors.size();
     }
 
     @Override
     public Integer visit(ClassDeclaration classDeclaration) {
-        int numOfErrors = printErrors(classDeclaration);
-        numOfErrors += classDeclaration.getClassName().accept(this);
+        rank(classDeclaration);
+        classDeclaration.getClassName().accept(this);
         if(classDeclaration.getParentClassName() != null) {
-            numOfErrors += classDeclaration.getParentClassName().accept(this);
+            classDeclaration.getParentClassName().accept(this);
         }
         for(FieldDeclaration fieldDeclaration : classDeclaration.getFields()) {
-            numOfErrors += fieldDeclaration.accept(this);
+            fieldDeclaration.accept(this);
         }
         if(classDeclaration.getConstructor() != null) {
-            numOfErrors += classDeclaration.getConstructor().accept(this);
+            classDeclaration.getConstructor().accept(this);
         }
         for(MethodDeclaration methodDeclaration : classDeclaration.getMethods()) {
-            numOfErrors += methodDeclaration.accept(this);
+            methodDeclaration.accept(this);
         }
-        return numOfErrors;
+        return null;
     }
 
     @Override
@@ -68,205 +103,213 @@ public class ErrorReporter extends Visitor<Integer> {
 
     @Override
     public Integer visit(MethodDeclaration methodDeclaration) {
-        int numOfErrors = printErrors(methodDeclaration);
-        numOfErrors += methodDeclaration.getMethodName().accept(this);
+        rank(methodDeclaration);
+        methodDeclaration.getMethodName().accept(this);
         for(VarDeclaration varDeclaration : methodDeclaration.getArgs()) {
-            numOfErrors += varDeclaration.accept(this);
+            varDeclaration.accept(this);
         }
         for(VarDeclaration varDeclaration : methodDeclaration.getLocalVars()) {
-            numOfErrors += varDeclaration.accept(this);
+            varDeclaration.accept(this);
         }
         for(Statement statement : methodDeclaration.getBody()) {
-            numOfErrors += statement.accept(this);
+            statement.accept(this);
         }
-        return numOfErrors;
+        return null;
     }
 
     @Override
     public Integer visit(FieldDeclaration fieldDeclaration) {
-        int numOfErrors = printErrors(fieldDeclaration);
-        numOfErrors += fieldDeclaration.getVarDeclaration().accept(this);
-        return numOfErrors;
+        rank(fieldDeclaration);
+        fieldDeclaration.getVarDeclaration().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(VarDeclaration varDeclaration) {
-        int numOfErrors = printErrors(varDeclaration);
-        numOfErrors += varDeclaration.getVarName().accept(this);
-        return numOfErrors;
+        rank(varDeclaration);
+        varDeclaration.getVarName().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(AssignmentStmt assignmentStmt) {
-        int numOfErrors = printErrors(assignmentStmt);
-        numOfErrors += assignmentStmt.getlValue().accept(this);
-        numOfErrors += assignmentStmt.getrValue().accept(this);
-        return numOfErrors;
+        rank(assignmentStmt);
+        assignmentStmt.getlValue().accept(this);
+        assignmentStmt.getrValue().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(BlockStmt blockStmt) {
-        int numOfErrors = printErrors(blockStmt);
+        rank(blockStmt);
         for(Statement statement : blockStmt.getStatements()) {
-            numOfErrors += statement.accept(this);
+            statement.accept(this);
         }
-        return numOfErrors;
+        return null;
     }
 
     @Override
     public Integer visit(ConditionalStmt conditionalStmt) {
-        int numOfErrors = printErrors(conditionalStmt);
-        numOfErrors += conditionalStmt.getCondition().accept(this);
-        numOfErrors += conditionalStmt.getThenBody().accept(this);
+        rank(conditionalStmt);
+        conditionalStmt.getCondition().accept(this);
+        conditionalStmt.getThenBody().accept(this);
         if(conditionalStmt.getElseBody() != null) {
-            numOfErrors += conditionalStmt.getElseBody().accept(this);
+            conditionalStmt.getElseBody().accept(this);
         }
-        return numOfErrors;
+        return null;
     }
 
     @Override
     public Integer visit(MethodCallStmt methodCallStmt) {
-        int numOfErrors = printErrors(methodCallStmt);
-        numOfErrors += methodCallStmt.getMethodCall().accept(this);
-        return numOfErrors;
+        rank(methodCallStmt);
+        methodCallStmt.getMethodCall().accept(this);
+        return null;
     }
 
     @Override
-    public Integer visit(PrintStmt printErrors) {
-        int numOfErrors = printErrors(printErrors);
-        numOfErrors += printErrors.getArg().accept(this);
-        return numOfErrors;
+    public Integer visit(PrintStmt printStmt) {
+        rank(printStmt);
+        printStmt.getArg().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(ReturnStmt returnStmt) {
-        int numOfErrors = printErrors(returnStmt);
-        numOfErrors += returnStmt.getReturnedExpr().accept(this);
-        return numOfErrors;
+        rank(returnStmt);
+        returnStmt.getReturnedExpr().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(BreakStmt breakStmt) {
-        return printErrors(breakStmt);
+        rank(breakStmt);
+        return null;
     }
 
     @Override
     public Integer visit(ContinueStmt continueStmt) {
-        return printErrors(continueStmt);
+        rank(continueStmt);
+        return null;
     }
 
     @Override
     public Integer visit(ForeachStmt foreachStmt) {
-        int numOfErrors = printErrors(foreachStmt);
-        numOfErrors += foreachStmt.getVariable().accept(this);
-        numOfErrors += foreachStmt.getList().accept(this);
-        numOfErrors += foreachStmt.getBody().accept(this);
-        return numOfErrors;
+        rank(foreachStmt);
+        foreachStmt.getVariable().accept(this);
+        foreachStmt.getList().accept(this);
+        foreachStmt.getBody().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(ForStmt forStmt) {
-        int numOfErrors = printErrors(forStmt);
+        rank(forStmt);
         if(forStmt.getInitialize() != null) {
-            numOfErrors += forStmt.getInitialize().accept(this);
+            forStmt.getInitialize().accept(this);
         }
         if(forStmt.getCondition() != null) {
-            numOfErrors += forStmt.getCondition().accept(this);
+            forStmt.getCondition().accept(this);
         }
         if(forStmt.getUpdate() != null) {
-            numOfErrors += forStmt.getUpdate().accept(this);
+            forStmt.getUpdate().accept(this);
         }
-        numOfErrors += forStmt.getBody().accept(this);
-        return numOfErrors;
+        forStmt.getBody().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(BinaryExpression binaryExpression) {
-        int numOfErrors = printErrors(binaryExpression);
-        numOfErrors += binaryExpression.getFirstOperand().accept(this);
-        numOfErrors += binaryExpression.getSecondOperand().accept(this);
-        return numOfErrors;
+        rank(binaryExpression);
+        binaryExpression.getFirstOperand().accept(this);
+        binaryExpression.getSecondOperand().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(UnaryExpression unaryExpression) {
-        int numOfErrors = printErrors(unaryExpression);
-        numOfErrors += unaryExpression.getOperand().accept(this);
-        return numOfErrors;
+        rank(unaryExpression);
+        unaryExpression.getOperand().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
-        int numOfErrors = printErrors(objectOrListMemberAccess);
-        numOfErrors += objectOrListMemberAccess.getInstance().accept(this);
-        numOfErrors += objectOrListMemberAccess.getMemberName().accept(this);
-        return numOfErrors;
+        rank(objectOrListMemberAccess);
+        objectOrListMemberAccess.getInstance().accept(this);
+        objectOrListMemberAccess.getMemberName().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(Identifier identifier) {
-        return printErrors(identifier);
+        rank(identifier);
+        return null;
     }
 
     @Override
     public Integer visit(ListAccessByIndex listAccessByIndex) {
-        int numOfErrors = printErrors(listAccessByIndex);
-        numOfErrors += listAccessByIndex.getInstance().accept(this);
-        numOfErrors += listAccessByIndex.getIndex().accept(this);
-        return numOfErrors;
+        rank(listAccessByIndex);
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        return null;
     }
 
     @Override
     public Integer visit(MethodCall methodCall) {
-        int numOfErrors = printErrors(methodCall);
-        numOfErrors += methodCall.getInstance().accept(this);
+        rank(methodCall);
+        methodCall.getInstance().accept(this);
         for(Expression expression : methodCall.getArgs()) {
-            numOfErrors += expression.accept(this);
+            expression.accept(this);
         }
-        return numOfErrors;
+        return null;
     }
 
     @Override
     public Integer visit(NewClassInstance newClassInstance) {
-        int numOfErrors = printErrors(newClassInstance);
+        rank(newClassInstance);
         for(Expression expression : newClassInstance.getArgs()) {
-            numOfErrors += expression.accept(this);
+            expression.accept(this);
         }
-        return numOfErrors;
+        return null;
     }
 
     @Override
     public Integer visit(ThisClass thisClass) {
-        return printErrors(thisClass);
+        rank(thisClass);
+        return null;
     }
 
     @Override
     public Integer visit(ListValue listValue) {
-        int numOfErrors = printErrors(listValue);
+        rank(listValue);
         for(Expression expression : listValue.getElements()) {
-            numOfErrors += expression.accept(this);
+            expression.accept(this);
         }
-        return numOfErrors;
+        return null;
     }
 
     @Override
     public Integer visit(NullValue nullValue) {
-        return printErrors(nullValue);
+        rank(nullValue);
+        return null;
     }
 
     @Override
     public Integer visit(IntValue intValue) {
-        return printErrors(intValue);
+        rank(intValue);
+        return null;
     }
 
     @Override
     public Integer visit(BoolValue boolValue) {
-        return printErrors(boolValue);
+        rank(boolValue);
+        return null;
     }
 
     @Override
     public Integer visit(StringValue stringValue) {
-        return printErrors(stringValue);
+        rank(stringValue);
+        return null;
     }
 
 }
@@ -0,0 +1,270 @@
+package main.visitor.utils;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+
+//Lists the nodes of a class in the order the ErrorReporter walks them.
+//Two classes parsed from the same tokens give lists of the same length with matching nodes at every position.
+public class NodeLister extends Visitor<Void> {
+    private final ArrayList<Node> nodes = new ArrayList<>();
+
+    public static ArrayList<Node> listNodes(ClassDeclaration classDeclaration) {
+        NodeLister nodeLister = new NodeLister();
+        classDeclaration.accept(nodeLister);
+        return nodeLister.nodes;
+    }
+
+    @Override
+    public Void visit(ClassDeclaration classDeclaration) {
+        nodes.add(classDeclaration);
+        classDeclaration.getClassName().accept(this);
+        if(classDeclaration.getParentClassName() != null) {
+            classDeclaration.getParentClassName().accept(this);
+        }
+        for(FieldDeclaration fieldDeclaration : classDeclaration.getFields()) {
+            fieldDeclaration.accept(this);
+        }
+        if(classDeclaration.getConstructor() != null) {
+            classDeclaration.getConstructor().accept(this);
+        }
+        for(MethodDeclaration methodDeclaration : classDeclaration.getMethods()) {
+            methodDeclaration.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ConstructorDeclaration constructorDeclaration) {
+        return this.visit((MethodDeclaration) constructorDeclaration);
+    }
+
+    @Override
+    public Void visit(MethodDeclaration methodDeclaration) {
+        nodes.add(methodDeclaration);
+        methodDeclaration.getMethodName().accept(this);
+        for(VarDeclaration varDeclaration : methodDeclaration.getArgs()) {
+            varDeclaration.accept(this);
+        }
+        for(VarDeclaration varDeclaration : methodDeclaration.getLocalVars()) {
+            varDeclaration.accept(this);
+        }
+        for(Statement statement : methodDeclaration.getBody()) {
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(FieldDeclaration fieldDeclaration) {
+        nodes.add(fieldDeclaration);
+        fieldDeclaration.getVarDeclaration().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDeclaration varDeclaration) {
+        nodes.add(varDeclaration);
+        varDeclaration.getVarName().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        nodes.add(assignmentStmt);
+        assignmentStmt.getlValue().accept(this);
+        assignmentStmt.getrValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        nodes.add(blockStmt);
+        for(Statement statement : blockStmt.getStatements()) {
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        nodes.add(conditionalStmt);
+        conditionalStmt.getCondition().accept(this);
+        conditionalStmt.getThenBody().accept(this);
+        if(conditionalStmt.getElseBody() != null) {
+            conditionalStmt.getElseBody().accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCallStmt methodCallStmt) {
+        nodes.add(methodCallStmt);
+        methodCallStmt.getMethodCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(PrintStmt printStmt) {
+        nodes.add(printStmt);
+        printStmt.getArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        nodes.add(returnStmt);
+        returnStmt.getReturnedExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BreakStmt breakStmt) {
+        nodes.add(breakStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ContinueStmt continueStmt) {
+        nodes.add(continueStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ForeachStmt foreachStmt) {
+        nodes.add(foreachStmt);
+        foreachStmt.getVariable().accept(this);
+        foreachStmt.getList().accept(this);
+        foreachStmt.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ForStmt forStmt) {
+        nodes.add(forStmt);
+        if(forStmt.getInitialize() != null) {
+            forStmt.getInitialize().accept(this);
+        }
+        if(forStmt.getCondition() != null) {
+            forStmt.getCondition().accept(this);
+        }
+        if(forStmt.getUpdate() != null) {
+            forStmt.getUpdate().accept(this);
+        }
+        forStmt.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        nodes.add(binaryExpression);
+        binaryExpression.getFirstOperand().accept(this);
+        binaryExpression.getSecondOperand().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        nodes.add(unaryExpression);
+        unaryExpression.getOperand().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        nodes.add(objectOrListMemberAccess);
+        objectOrListMemberAccess.getInstance().accept(this);
+        objectOrListMemberAccess.getMemberName().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        nodes.add(identifier);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        nodes.add(listAccessByIndex);
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCall methodCall) {
+        nodes.add(methodCall);
+        methodCall.getInstance().accept(this);
+        for(Expression expression : methodCall.getArgs()) {
+            expression.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(NewClassInstance newClassInstance) {
+        nodes.add(newClassInstance);
+        for(Expression expression : newClassInstance.getArgs()) {
+            expression.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ThisClass thisClass) {
+        nodes.add(thisClass);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListValue listValue) {
+        nodes.add(listValue);
+        for(Expression expression : listValue.getElements()) {
+            expression.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(NullValue nullValue) {
+        nodes.add(nullValue);
+        return null;
+    }
+
+    @Override
+    public Void visit(IntValue intValue) {
+        nodes.add(intValue);
+        return null;
+    }
+
+    @Override
+    public Void visit(BoolValue boolValue) {
+        nodes.add(boolValue);
+        return null;
+    }
+
+    @Override
+    public Void visit(StringValue stringValue) {
+        nodes.add(stringValue);
+        return null;
+    }
+
+}